@@ -0,0 +1,79 @@
+package com.exiua.processing.config;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import route.optimization.RouteOptimization;
+
+/**
+ * Polls rarely while a job waits far back in the queue and more often as it gets close
+ * to finishing, based on queue_position, progress and estimated_completion_time.
+ * The delay always stays within [minInterval, maxInterval].
+ */
+public class AdaptivePollingStrategy implements PollingStrategy {
+
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Duration defaultInterval;
+    private final int queuePositionForMaxInterval;
+
+    public AdaptivePollingStrategy(Duration minInterval, Duration maxInterval, Duration defaultInterval,
+            int queuePositionForMaxInterval) {
+        if (maxInterval.compareTo(minInterval) < 0) {
+            throw new IllegalArgumentException("maxInterval must be >= minInterval");
+        }
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.defaultInterval = defaultInterval;
+        this.queuePositionForMaxInterval = Math.max(1, queuePositionForMaxInterval);
+    }
+
+    @Override
+    public Duration nextPollDelay(RouteOptimization.JobStatusResponse lastStatus, Instant now) {
+        if (lastStatus == null) {
+            return clamp(defaultInterval);
+        }
+
+        switch (lastStatus.getStatus().toUpperCase().trim()) {
+            case "QUEUED": {
+                // Head of the queue: half way between min and max; far back: max
+                double farness = Math.min(1.0, (double) lastStatus.getQueuePosition() / queuePositionForMaxInterval);
+                return interpolate(0.5 + 0.5 * farness);
+            }
+            case "PROCESSING": {
+                // Remaining work according to progress (0..100)
+                float progress = Math.max(0f, Math.min(100f, lastStatus.getProgress()));
+                Duration byProgress = interpolate(1.0 - progress / 100.0);
+
+                // If there is an ETA, check again half way to it so we converge on the completion
+                Instant eta = PollingStrategy.parseTimestamp(lastStatus.getEstimatedCompletionTime());
+                if (eta != null) {
+                    Duration byEta = Duration.between(now, eta).dividedBy(2);
+                    return clamp(byEta.compareTo(byProgress) < 0 ? byEta : byProgress);
+                }
+                return byProgress;
+            }
+            default:
+                return clamp(defaultInterval);
+        }
+    }
+
+    /**
+     * 0 -> minInterval, 1 -> maxInterval
+     */
+    private Duration interpolate(double fraction) {
+        long min = minInterval.toMillis();
+        long max = maxInterval.toMillis();
+        return Duration.ofMillis(min + Math.round((max - min) * fraction));
+    }
+
+    private Duration clamp(Duration delay) {
+        if (delay.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        if (delay.compareTo(maxInterval) > 0) {
+            return maxInterval;
+        }
+        return delay;
+    }
+}
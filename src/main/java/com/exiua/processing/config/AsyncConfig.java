@@ -1,10 +1,16 @@
 package com.exiua.processing.config;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
@@ -12,6 +18,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 public class AsyncConfig {
 
     @Bean(name = "routeProcessingExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
     public Executor routeProcessingExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);       // hilos base
@@ -23,4 +30,29 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Con spring.threads.virtual.enabled=true (Java 21) cada tarea corre en su propio hilo
+     * virtual, sin el tope de 10 hilos del pool de plataforma.
+     */
+    @Bean(name = "routeProcessingExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualThreadRouteProcessingExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("route-proc-vt-");
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+
+    /**
+     * Scheduler compartido para reintentos y polling no bloqueantes de gRPC.
+     * Las esperas se programan aquí en vez de dormir un hilo por trabajo; también sus
+     * temporizadores (plazos, sondeos del circuit breaker, coberturas), así que ninguna
+     * tarea suya puede bloquear. Tamaño: processing.scheduler-threads.
+     */
+    @Bean(name = "routeProcessingScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService routeProcessingScheduler(ProcessingConfigurationProperties processingConfig) {
+        return Executors.newScheduledThreadPool(processingConfig.getSchedulerThreads(), 
+                new CustomizableThreadFactory("route-sched-"));
+    }
 }
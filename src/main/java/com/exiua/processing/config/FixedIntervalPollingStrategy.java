@@ -0,0 +1,23 @@
+package com.exiua.processing.config;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import route.optimization.RouteOptimization;
+
+/**
+ * Polls every job at the same fixed interval (polling-interval-seconds)
+ */
+public class FixedIntervalPollingStrategy implements PollingStrategy {
+
+    private final Duration interval;
+
+    public FixedIntervalPollingStrategy(Duration interval) {
+        this.interval = interval;
+    }
+
+    @Override
+    public Duration nextPollDelay(RouteOptimization.JobStatusResponse lastStatus, Instant now) {
+        return interval;
+    }
+}
@@ -1,11 +1,18 @@
 package com.exiua.processing.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 /**
  * Configuration properties for gRPC communication with Python MRL-AMIS service
@@ -27,6 +34,17 @@ public class GrpcPythonMrlAmisConfigurationProperties {
     @Positive
     private int port = 50051;
 
+    /**
+     * Optional list of MRL-AMIS replicas as host:port. When empty, host and port are used.
+     */
+    private List<String> backends = new ArrayList<>();
+
+    /**
+     * Interval in seconds between GetQueueInfo load probes of every replica
+     */
+    @Positive
+    private long backendProbeIntervalSeconds = 10;
+
     /**
      * Connection timeout in seconds
      */
@@ -39,6 +57,19 @@ public class GrpcPythonMrlAmisConfigurationProperties {
     @Positive
     private long requestTimeoutSeconds = 600; // 10 minutes
 
+    /**
+     * Overall deadline of one route request (submit, status checks and result fetch
+     * together) when the client does not send its own
+     */
+    @Positive
+    private long requestDeadlineSeconds = 1200; // 20 minutes
+
+    /**
+     * Upper bound for the deadline a client may ask for
+     */
+    @Positive
+    private long maxRequestDeadlineSeconds = 1800; // 30 minutes, same as spring.mvc.async.request-timeout
+
     /**
      * Maximum retry attempts for failed requests
      */
@@ -62,6 +93,340 @@ public class GrpcPythonMrlAmisConfigurationProperties {
     @Positive
     private int pollingMaxAttempts = 1000; // 1000 attempts = 10000 seconds (2.78 hours)
 
+    /**
+     * Use the server-streaming WatchJob RPC to follow job status (falls back to polling if unsupported)
+     */
+    private boolean watchJobEnabled = true;
+
+    /**
+     * Tick period in milliseconds of the central job tracker that schedules status checks
+     */
+    @Positive
+    private long trackerTickMillis = 500;
+
+    /**
+     * Maximum number of job IDs sent in one GetJobStatuses batch call
+     */
+    @Positive
+    private int statusBatchSize = 100;
+
+    /**
+     * Strategy used to schedule status checks: FIXED (polling-interval-seconds) or ADAPTIVE
+     */
+    private PollingStrategyType pollingStrategy = PollingStrategyType.ADAPTIVE;
+
+    /**
+     * Lower bound in milliseconds for the adaptive polling interval
+     */
+    @Positive
+    private long pollingMinIntervalMillis = 1000;
+
+    /**
+     * Upper bound in seconds for the adaptive polling interval
+     */
+    @Positive
+    private long pollingMaxIntervalSeconds = 30;
+
+    /**
+     * Queue position at (or beyond) which the adaptive strategy polls at the maximum interval
+     */
+    @Positive
+    private int pollingQueuePositionForMaxInterval = 5;
+
+    /**
+     * Group submissions that arrive close together into one OptimizeRoutes call
+     */
+    private boolean submitBatchEnabled = true;
+
+    /**
+     * Maximum number of routes sent in one OptimizeRoutes call
+     */
+    @Positive
+    private int submitBatchMaxSize = 20;
+
+    /**
+     * How long a submission waits for others to join its OptimizeRoutes batch
+     */
+    @PositiveOrZero
+    private long submitBatchWindowMillis = 5;
+
+    /**
+     * Per-replica circuit breaker around the MRL-AMIS RPCs
+     */
+    @Valid
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Backoff and retry budget for OptimizeRoute submissions
+     */
+    @Valid
+    private Retry retry = new Retry();
+
+    /**
+     * Hedging of the idempotent RPCs (job status, job result, queue info, health check)
+     */
+    @Valid
+    private Hedging hedging = new Hedging();
+
+    public static class CircuitBreaker {
+
+        /**
+         * Fail fast on replicas whose circuit is open
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of most recent calls used to compute failure and slow-call rates
+         */
+        @Positive
+        private int windowSize = 20;
+
+        /**
+         * Calls needed in the window before the rates are evaluated
+         */
+        @Positive
+        private int minimumCalls = 10;
+
+        /**
+         * Percentage of failed calls (UNAVAILABLE, RESOURCE_EXHAUSTED, INTERNAL, UNKNOWN) that opens
+         * the circuit. DEADLINE_EXCEEDED is not a failure here: deadlines come from the caller's
+         * budget, and a slow replica is caught by slowCallRateThreshold instead
+         */
+        @DecimalMin("1")
+        @DecimalMax("100")
+        private double failureRateThreshold = 50;
+
+        /**
+         * Percentage of slow unary calls that opens the circuit
+         */
+        @DecimalMin("1")
+        @DecimalMax("100")
+        private double slowCallRateThreshold = 80;
+
+        /**
+         * A unary call taking longer than this counts as slow
+         */
+        @Positive
+        private long slowCallDurationSeconds = 10;
+
+        /**
+         * Time the circuit stays open before a HealthCheck probe is sent (half-open)
+         */
+        @Positive
+        private long openSeconds = 15;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public double getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public long getSlowCallDurationSeconds() {
+            return slowCallDurationSeconds;
+        }
+
+        public void setSlowCallDurationSeconds(long slowCallDurationSeconds) {
+            this.slowCallDurationSeconds = slowCallDurationSeconds;
+        }
+
+        public long getOpenSeconds() {
+            return openSeconds;
+        }
+
+        public void setOpenSeconds(long openSeconds) {
+            this.openSeconds = openSeconds;
+        }
+    }
+
+    public static class Retry {
+
+        /**
+         * Lower bound of the decorrelated-jitter backoff between attempts
+         */
+        @Positive
+        private long baseBackoffMillis = 1000;
+
+        /**
+         * Upper bound of the backoff between attempts
+         */
+        @Positive
+        private long maxBackoffMillis = 10000;
+
+        /**
+         * Retry tokens earned per successful call (0.1: at most one retry per ten successes)
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double budgetRatio = 0.1;
+
+        /**
+         * Maximum retry tokens that can be saved up (also the initial amount)
+         */
+        @Positive
+        private int budgetMaxTokens = 10;
+
+        public long getBaseBackoffMillis() {
+            return baseBackoffMillis;
+        }
+
+        public void setBaseBackoffMillis(long baseBackoffMillis) {
+            this.baseBackoffMillis = baseBackoffMillis;
+        }
+
+        public long getMaxBackoffMillis() {
+            return maxBackoffMillis;
+        }
+
+        public void setMaxBackoffMillis(long maxBackoffMillis) {
+            this.maxBackoffMillis = maxBackoffMillis;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getBudgetMaxTokens() {
+            return budgetMaxTokens;
+        }
+
+        public void setBudgetMaxTokens(int budgetMaxTokens) {
+            this.budgetMaxTokens = budgetMaxTokens;
+        }
+    }
+
+    public static class Hedging {
+
+        /**
+         * Send a second attempt when the first one is slower than the observed percentile.
+         * Off by default: every hedge is extra load on MRL-AMIS
+         */
+        private boolean enabled = false;
+
+        /**
+         * Latency percentile of recent calls to the same method after which the hedge is sent
+         */
+        @DecimalMin("0.5")
+        @DecimalMax("1.0")
+        private double percentile = 0.95;
+
+        /**
+         * Never hedge earlier than this
+         */
+        @PositiveOrZero
+        private long minDelayMillis = 50;
+
+        /**
+         * Hedge delay used until enough latencies of the method have been observed
+         */
+        @Positive
+        private long initialDelayMillis = 1000;
+
+        /**
+         * Hedge tokens earned by each hedgeable call; a hedge spends one, so hedges stay below
+         * this fraction of calls. Separate from the retry budget of OptimizeRoute
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double budgetRatio = 0.05;
+
+        /**
+         * Maximum hedge tokens that can be saved up
+         */
+        @Positive
+        private int budgetMaxTokens = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public long getMinDelayMillis() {
+            return minDelayMillis;
+        }
+
+        public void setMinDelayMillis(long minDelayMillis) {
+            this.minDelayMillis = minDelayMillis;
+        }
+
+        public long getInitialDelayMillis() {
+            return initialDelayMillis;
+        }
+
+        public void setInitialDelayMillis(long initialDelayMillis) {
+            this.initialDelayMillis = initialDelayMillis;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getBudgetMaxTokens() {
+            return budgetMaxTokens;
+        }
+
+        public void setBudgetMaxTokens(int budgetMaxTokens) {
+            this.budgetMaxTokens = budgetMaxTokens;
+        }
+    }
+
+    public enum PollingStrategyType {
+        FIXED,
+        ADAPTIVE
+    }
+
     // Getters and Setters
     public String getHost() {
         return host;
@@ -79,6 +444,22 @@ public class GrpcPythonMrlAmisConfigurationProperties {
         this.port = port;
     }
 
+    public List<String> getBackends() {
+        return backends;
+    }
+
+    public void setBackends(List<String> backends) {
+        this.backends = backends;
+    }
+
+    public long getBackendProbeIntervalSeconds() {
+        return backendProbeIntervalSeconds;
+    }
+
+    public void setBackendProbeIntervalSeconds(long backendProbeIntervalSeconds) {
+        this.backendProbeIntervalSeconds = backendProbeIntervalSeconds;
+    }
+
     public long getConnectionTimeoutSeconds() {
         return connectionTimeoutSeconds;
     }
@@ -126,4 +507,124 @@ public class GrpcPythonMrlAmisConfigurationProperties {
     public void setPollingMaxAttempts(int pollingMaxAttempts) {
         this.pollingMaxAttempts = pollingMaxAttempts;
     }
-}
\ No newline at end of file
+
+    public boolean isWatchJobEnabled() {
+        return watchJobEnabled;
+    }
+
+    public void setWatchJobEnabled(boolean watchJobEnabled) {
+        this.watchJobEnabled = watchJobEnabled;
+    }
+
+    public long getTrackerTickMillis() {
+        return trackerTickMillis;
+    }
+
+    public void setTrackerTickMillis(long trackerTickMillis) {
+        this.trackerTickMillis = trackerTickMillis;
+    }
+
+    public int getStatusBatchSize() {
+        return statusBatchSize;
+    }
+
+    public void setStatusBatchSize(int statusBatchSize) {
+        this.statusBatchSize = statusBatchSize;
+    }
+
+    public PollingStrategyType getPollingStrategy() {
+        return pollingStrategy;
+    }
+
+    public void setPollingStrategy(PollingStrategyType pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+    }
+
+    public long getPollingMinIntervalMillis() {
+        return pollingMinIntervalMillis;
+    }
+
+    public void setPollingMinIntervalMillis(long pollingMinIntervalMillis) {
+        this.pollingMinIntervalMillis = pollingMinIntervalMillis;
+    }
+
+    public long getPollingMaxIntervalSeconds() {
+        return pollingMaxIntervalSeconds;
+    }
+
+    public void setPollingMaxIntervalSeconds(long pollingMaxIntervalSeconds) {
+        this.pollingMaxIntervalSeconds = pollingMaxIntervalSeconds;
+    }
+
+    public int getPollingQueuePositionForMaxInterval() {
+        return pollingQueuePositionForMaxInterval;
+    }
+
+    public void setPollingQueuePositionForMaxInterval(int pollingQueuePositionForMaxInterval) {
+        this.pollingQueuePositionForMaxInterval = pollingQueuePositionForMaxInterval;
+    }
+
+    public boolean isSubmitBatchEnabled() {
+        return submitBatchEnabled;
+    }
+
+    public void setSubmitBatchEnabled(boolean submitBatchEnabled) {
+        this.submitBatchEnabled = submitBatchEnabled;
+    }
+
+    public int getSubmitBatchMaxSize() {
+        return submitBatchMaxSize;
+    }
+
+    public void setSubmitBatchMaxSize(int submitBatchMaxSize) {
+        this.submitBatchMaxSize = submitBatchMaxSize;
+    }
+
+    public long getSubmitBatchWindowMillis() {
+        return submitBatchWindowMillis;
+    }
+
+    public void setSubmitBatchWindowMillis(long submitBatchWindowMillis) {
+        this.submitBatchWindowMillis = submitBatchWindowMillis;
+    }
+
+    public long getRequestDeadlineSeconds() {
+        return requestDeadlineSeconds;
+    }
+
+    public void setRequestDeadlineSeconds(long requestDeadlineSeconds) {
+        this.requestDeadlineSeconds = requestDeadlineSeconds;
+    }
+
+    public long getMaxRequestDeadlineSeconds() {
+        return maxRequestDeadlineSeconds;
+    }
+
+    public void setMaxRequestDeadlineSeconds(long maxRequestDeadlineSeconds) {
+        this.maxRequestDeadlineSeconds = maxRequestDeadlineSeconds;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public void setRetry(Retry retry) {
+        this.retry = retry;
+    }
+
+    public Hedging getHedging() {
+        return hedging;
+    }
+
+    public void setHedging(Hedging hedging) {
+        this.hedging = hedging;
+    }
+}
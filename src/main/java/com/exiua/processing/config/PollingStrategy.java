@@ -0,0 +1,44 @@
+package com.exiua.processing.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+import route.optimization.RouteOptimization;
+
+/**
+ * Strategy that decides when the job tracker should check a job's status again
+ */
+@FunctionalInterface
+public interface PollingStrategy {
+
+    /**
+     * Delay until the next status check
+     *
+     * @param lastStatus last known status of the job (from the submit response or the previous poll)
+     * @param now        current time
+     */
+    Duration nextPollDelay(RouteOptimization.JobStatusResponse lastStatus, Instant now);
+
+    /**
+     * Parses an ISO 8601 timestamp sent by the Python service. Timestamps without offset
+     * are interpreted in the local time zone. Returns null if empty or unparseable.
+     */
+    static Instant parseTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.isBlank()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(timestamp).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(timestamp).atZone(ZoneId.systemDefault()).toInstant();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
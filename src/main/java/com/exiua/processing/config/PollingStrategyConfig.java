@@ -0,0 +1,26 @@
+package com.exiua.processing.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link PollingStrategy} used by the job tracker
+ */
+@Configuration
+public class PollingStrategyConfig {
+
+    @Bean
+    public PollingStrategy pollingStrategy(GrpcPythonMrlAmisConfigurationProperties grpcConfig) {
+        Duration fixedInterval = Duration.ofSeconds(grpcConfig.getPollingIntervalSeconds());
+        return switch (grpcConfig.getPollingStrategy()) {
+            case FIXED -> new FixedIntervalPollingStrategy(fixedInterval);
+            case ADAPTIVE -> new AdaptivePollingStrategy(
+                    Duration.ofMillis(grpcConfig.getPollingMinIntervalMillis()),
+                    Duration.ofSeconds(grpcConfig.getPollingMaxIntervalSeconds()),
+                    fixedInterval,
+                    grpcConfig.getPollingQueuePositionForMaxInterval());
+        };
+    }
+}
@@ -0,0 +1,534 @@
+package com.exiua.processing.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Configuration properties for local route processing (limits, caching, temp data)
+ */
+@Component
+@ConfigurationProperties(prefix = "processing")
+@Validated
+public class ProcessingConfigurationProperties {
+
+    /**
+     * Maximum number of route optimizations processed at the same time. Always enforced:
+     * the adaptive concurrencyLimit can only lower it, never raise it
+     */
+    @Positive
+    private int maxConcurrentRequests = 5;
+
+    /**
+     * Directory for temporary processing data
+     */
+    private String tempDataDirectory = "/tmp/route-processing";
+
+    /**
+     * Hours after which temporary processing data is removed
+     */
+    @Positive
+    private int cleanupAfterHours = 2;
+
+    /**
+     * Threads of the shared routeProcessingScheduler (tracker ticks, retries, deadlines,
+     * circuit-breaker probes, hedge timers, batch windows). Its tasks must never block.
+     */
+    @Positive
+    private int schedulerThreads = 4;
+
+    /**
+     * In-memory cache of optimization results keyed by canonical request fingerprint
+     */
+    @Valid
+    private ResultCache resultCache = new ResultCache();
+
+    /**
+     * Disk-backed result store under tempDataDirectory, second tier behind resultCache
+     */
+    @Valid
+    private ResultStore resultStore = new ResultStore();
+
+    /**
+     * Admission control of the local dispatch queue, applied per user
+     */
+    @Valid
+    private Admission admission = new Admission();
+
+    /**
+     * Adaptive (AIMD) limit of jobs in flight toward the Python MRL-AMIS service
+     */
+    @Valid
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    /**
+     * Per-user fair ordering of the local submission queue
+     */
+    @Valid
+    private FairScheduling fairScheduling = new FairScheduling();
+
+    /**
+     * Batch endpoint (/api/v1/process-routes)
+     */
+    @Valid
+    private Batch batch = new Batch();
+
+    public static class ResultCache {
+
+        /**
+         * Serve repeated identical requests from the cache
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time to live of a cached result in minutes
+         */
+        @Positive
+        private long ttlMinutes = 60;
+
+        /**
+         * Maximum total weight of cached results (serialized protobuf bytes)
+         */
+        @Positive
+        private long maxWeightBytes = 64L * 1024 * 1024; // 64 MB
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getTtlMinutes() {
+            return ttlMinutes;
+        }
+
+        public void setTtlMinutes(long ttlMinutes) {
+            this.ttlMinutes = ttlMinutes;
+        }
+
+        public long getMaxWeightBytes() {
+            return maxWeightBytes;
+        }
+
+        public void setMaxWeightBytes(long maxWeightBytes) {
+            this.maxWeightBytes = maxWeightBytes;
+        }
+    }
+
+    public static class ResultStore {
+
+        /**
+         * Persist completed results to disk so they survive restarts
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum size of a segment file before a new one is started
+         */
+        @Positive
+        private long segmentMaxBytes = 256L * 1024 * 1024; // 256 MB
+
+        /**
+         * Minutes after which a new segment is started, so old results expire segment by segment
+         */
+        @Positive
+        private long segmentRollMinutes = 30;
+
+        /**
+         * Minutes between runs of the expired segment cleanup
+         */
+        @Positive
+        private long cleanupIntervalMinutes = 15;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getSegmentMaxBytes() {
+            return segmentMaxBytes;
+        }
+
+        public void setSegmentMaxBytes(long segmentMaxBytes) {
+            this.segmentMaxBytes = segmentMaxBytes;
+        }
+
+        public long getSegmentRollMinutes() {
+            return segmentRollMinutes;
+        }
+
+        public void setSegmentRollMinutes(long segmentRollMinutes) {
+            this.segmentRollMinutes = segmentRollMinutes;
+        }
+
+        public long getCleanupIntervalMinutes() {
+            return cleanupIntervalMinutes;
+        }
+
+        public void setCleanupIntervalMinutes(long cleanupIntervalMinutes) {
+            this.cleanupIntervalMinutes = cleanupIntervalMinutes;
+        }
+    }
+
+    public static class Admission {
+
+        /**
+         * Requests allowed to wait for a free slot; once reached only users below their fair
+         * share (maxQueueSize / queued users) may enqueue, the rest get 429
+         */
+        @PositiveOrZero
+        private int maxQueueSize = 20;
+
+        /**
+         * Requests a single user may have waiting for a free slot
+         */
+        @Positive
+        private int perUserMaxQueueSize = 10;
+
+        /**
+         * Assumed job duration in seconds until the runtime model has enough completed jobs
+         * (an MRL-AMIS run takes ~18 minutes)
+         */
+        @Positive
+        private long defaultJobDurationSeconds = 1080;
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        public void setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+        }
+
+        public int getPerUserMaxQueueSize() {
+            return perUserMaxQueueSize;
+        }
+
+        public void setPerUserMaxQueueSize(int perUserMaxQueueSize) {
+            this.perUserMaxQueueSize = perUserMaxQueueSize;
+        }
+
+        public long getDefaultJobDurationSeconds() {
+            return defaultJobDurationSeconds;
+        }
+
+        public void setDefaultJobDurationSeconds(long defaultJobDurationSeconds) {
+            this.defaultJobDurationSeconds = defaultJobDurationSeconds;
+        }
+    }
+
+    public static class ConcurrencyLimit {
+
+        /**
+         * Apply the adaptive limit; when disabled only maxConcurrentRequests applies
+         */
+        private boolean enabled = true;
+
+        /**
+         * Limit used at startup
+         */
+        @Positive
+        private int initialLimit = 4;
+
+        @Positive
+        private int minLimit = 1;
+
+        /**
+         * Ceiling of the adaptive limit itself, independent of maxConcurrentRequests; the
+         * effective limit is the lower of the two
+         */
+        @Positive
+        private int maxLimit = 50;
+
+        /**
+         * Multiplicative decrease applied on an overload signal
+         */
+        @DecimalMin("0.1")
+        @DecimalMax("0.99")
+        private double backoffRatio = 0.9;
+
+        /**
+         * OptimizeRoute latency above baseline times this factor counts as overload
+         */
+        @DecimalMin("1.0")
+        private double latencyTolerance = 2.0;
+
+        /**
+         * queue_position reported by MRL-AMIS above this counts as overload
+         */
+        @PositiveOrZero
+        private int maxQueuePosition = 10;
+
+        /**
+         * estimated_wait_time_minutes reported by MRL-AMIS above this counts as overload
+         */
+        @PositiveOrZero
+        private int maxEstimatedWaitMinutes = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        public int getMaxQueuePosition() {
+            return maxQueuePosition;
+        }
+
+        public void setMaxQueuePosition(int maxQueuePosition) {
+            this.maxQueuePosition = maxQueuePosition;
+        }
+
+        public int getMaxEstimatedWaitMinutes() {
+            return maxEstimatedWaitMinutes;
+        }
+
+        public void setMaxEstimatedWaitMinutes(int maxEstimatedWaitMinutes) {
+            this.maxEstimatedWaitMinutes = maxEstimatedWaitMinutes;
+        }
+    }
+
+    public static class FairScheduling {
+
+        /**
+         * Maximum MRL-AMIS jobs in flight per user
+         */
+        @Positive
+        private int perUserMaxInFlight = 2;
+
+        /**
+         * Deficit round robin credit given to a user per round (one submission costs 1)
+         */
+        @Positive
+        private double quantum = 1.0;
+
+        /**
+         * Optional weight per user ID (default 1); a user with weight 2 gets twice the share
+         */
+        private Map<String, @Positive Double> userWeights = new HashMap<>();
+
+        /**
+         * Order of submissions within a user's queue
+         */
+        private DispatchOrdering ordering = DispatchOrdering.SHORTEST_EXPECTED_FIRST;
+
+        /**
+         * Seconds of predicted runtime forgiven per second waited (prevents starvation of long jobs)
+         */
+        @PositiveOrZero
+        private double agingFactor = 1.0;
+
+        public int getPerUserMaxInFlight() {
+            return perUserMaxInFlight;
+        }
+
+        public void setPerUserMaxInFlight(int perUserMaxInFlight) {
+            this.perUserMaxInFlight = perUserMaxInFlight;
+        }
+
+        public double getQuantum() {
+            return quantum;
+        }
+
+        public void setQuantum(double quantum) {
+            this.quantum = quantum;
+        }
+
+        public Map<String, Double> getUserWeights() {
+            return userWeights;
+        }
+
+        public void setUserWeights(Map<String, Double> userWeights) {
+            this.userWeights = userWeights;
+        }
+
+        public DispatchOrdering getOrdering() {
+            return ordering;
+        }
+
+        public void setOrdering(DispatchOrdering ordering) {
+            this.ordering = ordering;
+        }
+
+        public double getAgingFactor() {
+            return agingFactor;
+        }
+
+        public void setAgingFactor(double agingFactor) {
+            this.agingFactor = agingFactor;
+        }
+    }
+
+    public static class Batch {
+
+        /**
+         * Maximum number of routes accepted in one batch request
+         */
+        @Positive
+        private int maxItems = 100;
+
+        /**
+         * Distinct routes of one batch processed at the same time
+         */
+        @Positive
+        private int maxConcurrency = 4;
+
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+    }
+
+    public enum DispatchOrdering {
+        FIFO,
+        SHORTEST_EXPECTED_FIRST
+    }
+
+    // Getters and Setters
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public String getTempDataDirectory() {
+        return tempDataDirectory;
+    }
+
+    public void setTempDataDirectory(String tempDataDirectory) {
+        this.tempDataDirectory = tempDataDirectory;
+    }
+
+    public int getCleanupAfterHours() {
+        return cleanupAfterHours;
+    }
+
+    public void setCleanupAfterHours(int cleanupAfterHours) {
+        this.cleanupAfterHours = cleanupAfterHours;
+    }
+
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public void setSchedulerThreads(int schedulerThreads) {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public ResultStore getResultStore() {
+        return resultStore;
+    }
+
+    public void setResultStore(ResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(ConcurrencyLimit concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public FairScheduling getFairScheduling() {
+        return fairScheduling;
+    }
+
+    public void setFairScheduling(FairScheduling fairScheduling) {
+        this.fairScheduling = fairScheduling;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+}
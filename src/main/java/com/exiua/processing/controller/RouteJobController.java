@@ -0,0 +1,222 @@
+package com.exiua.processing.controller;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.exiua.processing.model.JobStatus;
+import com.exiua.processing.model.RouteProcessingRequest;
+import com.exiua.processing.service.AdmissionController;
+import com.exiua.processing.service.RouteJob;
+import com.exiua.processing.service.RouteJobRegistry;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+
+/**
+ * REST Controller for asynchronous route jobs: submit, check status and fetch the result
+ * without holding a request thread while MRL-AMIS works
+ */
+@RestController
+@RequestMapping("/api/v1/jobs")
+@Tag(name = "Route Jobs", description = "Asynchronous route processing with MRL-AMIS Python model")
+public class RouteJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteJobController.class);
+
+    // Comentario SSE periódico para que proxies y balanceadores no corten la conexión
+    private static final Duration KEEPALIVE_INTERVAL = Duration.ofSeconds(15);
+
+    private final RouteJobRegistry jobRegistry;
+
+    public RouteJobController(RouteJobRegistry jobRegistry) {
+        this.jobRegistry = jobRegistry;
+    }
+
+    /**
+     * Submit a route optimization job
+     */
+    @PostMapping
+    @Operation(summary = "Submit route optimization job",
+               description = "Starts a route optimization and returns immediately with the job resource")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Job accepted"),
+        @ApiResponse(responseCode = "400", description = "Invalid request data"),
+        @ApiResponse(responseCode = "429", description = "Too many jobs in progress, see Retry-After")
+    })
+    public ResponseEntity<JobResponse> submitJob(@Valid @RequestBody RouteProcessingRequest request,
+            @RequestHeader(value = RouteProcessingController.REQUEST_TIMEOUT_HEADER, required = false) Long timeoutSeconds) {
+        logger.info("=== ROUTE JOB SUBMITTED === Route ID: {}, User ID: {}", request.getRouteId(), request.getUserId());
+
+        RouteJob job;
+        try {
+            job = jobRegistry.submit(request, RouteProcessingController.toTimeout(timeoutSeconds));
+        } catch (AdmissionController.AdmissionRejectedException e) {
+            logger.warn("Route job for {} rejected: {}", request.getRouteId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .body(JobResponse.of(job.snapshot()));
+    }
+
+    /**
+     * Current status of a job
+     */
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get job status", description = "Returns status, progress and queue position of a job")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job found"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    public ResponseEntity<JobResponse> getJob(@PathVariable String jobId) {
+        return jobRegistry.get(jobId)
+                .map(job -> ResponseEntity.ok(JobResponse.of(job.snapshot())))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Result of a finished job
+     */
+    @GetMapping("/{jobId}/result")
+    @Operation(summary = "Get job result", description = "Returns the optimized route once the job has completed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Route processed successfully"),
+        @ApiResponse(responseCode = "202", description = "Job still running, body has its status"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired job"),
+        @ApiResponse(responseCode = "409", description = "Job was cancelled, body has the job status"),
+        @ApiResponse(responseCode = "500", description = "Processing error, body has the job status")
+    })
+    public ResponseEntity<?> getJobResult(@PathVariable String jobId) {
+        RouteJob job = jobRegistry.get(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        RouteJob.Snapshot snapshot = job.snapshot();
+        if (!snapshot.isFinished()) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/jobs/" + job.getId()))
+                    .body(JobResponse.of(snapshot));
+        }
+        if (snapshot.status() == JobStatus.CANCELLED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(JobResponse.of(snapshot));
+        }
+        if (snapshot.status() != JobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(JobResponse.of(snapshot));
+        }
+        return ResponseEntity.ok(snapshot.result());
+    }
+
+    /**
+     * Cancel a running job
+     */
+    @DeleteMapping("/{jobId}")
+    @Operation(summary = "Cancel job",
+               description = "Cancels a running job; the MRL-AMIS job is cancelled too unless an identical "
+                           + "request is still waiting for it")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job cancelled, body has its final status"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired job"),
+        @ApiResponse(responseCode = "409", description = "Job had already finished, body has its status")
+    })
+    public ResponseEntity<JobResponse> cancelJob(@PathVariable String jobId) {
+        RouteJob job = jobRegistry.get(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        logger.info("=== ROUTE JOB CANCEL REQUESTED === Job ID: {}", jobId);
+        if (!jobRegistry.cancel(job)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(JobResponse.of(job.snapshot()));
+        }
+        return ResponseEntity.ok(JobResponse.of(job.snapshot()));
+    }
+
+    /**
+     * Server-Sent Events stream of job progress
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream job progress",
+               description = "Emits a 'status' event whenever status, progress or queue position change, "
+                           + "then a final 'result' (or 'error' / 'cancelled') event and closes the stream. "
+                           + "With cancelOnDisconnect=true the job is cancelled when the last such "
+                           + "subscriber disconnects before it finishes")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    public ResponseEntity<Flux<ServerSentEvent<?>>> streamJobEvents(@PathVariable String jobId,
+            @RequestParam(defaultValue = "false") boolean cancelOnDisconnect) {
+        RouteJob job = jobRegistry.get(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Todos los clientes leen del mismo sink del trabajo: no hay un watcher por cliente
+        Flux<ServerSentEvent<?>> events = jobRegistry.watch(job, cancelOnDisconnect).map(this::toEvent);
+        return ResponseEntity.ok(events.publish(shared -> Flux.merge(shared,
+                Flux.interval(KEEPALIVE_INTERVAL)
+                    .<ServerSentEvent<?>>map(tick -> ServerSentEvent.builder().comment("keepalive").build())
+                    .takeUntilOther(shared.then()))));
+    }
+
+    private ServerSentEvent<?> toEvent(RouteJob.Snapshot snapshot) {
+        if (snapshot.status() == JobStatus.COMPLETED) {
+            return ServerSentEvent.builder(snapshot.result())
+                    .id(snapshot.jobId())
+                    .event("result")
+                    .build();
+        }
+        return ServerSentEvent.builder(JobResponse.of(snapshot))
+                .id(snapshot.jobId())
+                .event(snapshot.status() == JobStatus.CANCELLED ? "cancelled"
+                        : snapshot.isFinished() ? "error" : "status")
+                .build();
+    }
+
+    /**
+     * Job resource returned by the API
+     */
+    public record JobResponse(
+            String jobId,
+            String routeId,
+            String userId,
+            JobStatus status,
+            float progress,
+            int queuePosition,
+            String message,
+            String error,
+            String estimatedCompletionTime,
+            Instant submittedAt,
+            Instant updatedAt,
+            Instant finishedAt) {
+
+        static JobResponse of(RouteJob.Snapshot job) {
+            return new JobResponse(job.jobId(), job.routeId(), job.userId(), job.status(),
+                    job.progress(), job.queuePosition(), job.message(), job.errorMessage(),
+                    job.estimatedCompletionTime(), job.submittedAt(), job.updatedAt(), job.finishedAt());
+        }
+    }
+}
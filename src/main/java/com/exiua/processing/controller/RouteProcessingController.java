@@ -1,23 +1,38 @@
 package com.exiua.processing.controller;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.exiua.processing.config.ProcessingConfigurationProperties;
 import com.exiua.processing.model.RouteProcessingRequest;
+import com.exiua.processing.service.AdmissionController;
+import com.exiua.processing.service.ConcurrentRouteProcessingService;
 import com.exiua.processing.service.GrpcPythonMrlAmisService;
 
+import io.grpc.Status;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
 
 /**
  * REST Controller for route processing with Python MRL-AMIS model
@@ -28,15 +43,29 @@ import jakarta.validation.Valid;
 public class RouteProcessingController {
     
     private static final Logger logger = LoggerFactory.getLogger(RouteProcessingController.class);
+
+    /**
+     * Optional overall time budget of a route request, in seconds
+     */
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout-Seconds";
     
     private final GrpcPythonMrlAmisService grpcPythonMrlAmisService;
+    private final ConcurrentRouteProcessingService concurrentRouteProcessingService;
+    private final ProcessingConfigurationProperties processingConfig;
 
-    public RouteProcessingController(GrpcPythonMrlAmisService grpcPythonMrlAmisService) {
+    public RouteProcessingController(GrpcPythonMrlAmisService grpcPythonMrlAmisService,
+            ConcurrentRouteProcessingService concurrentRouteProcessingService,
+            ProcessingConfigurationProperties processingConfig) {
         this.grpcPythonMrlAmisService = grpcPythonMrlAmisService;
+        this.concurrentRouteProcessingService = concurrentRouteProcessingService;
+        this.processingConfig = processingConfig;
     }
 
     /**
-     * Process route with Python MRL-AMIS model
+     * Process route with Python MRL-AMIS model. The request thread is released while the
+     * optimization runs; if the client goes away or the request times out the optimization
+     * is cancelled. The whole request (queueing, submit, status checks, result fetch) must fit
+     * in the X-Request-Timeout-Seconds budget, or the configured default.
      */
     @PostMapping("/process-route")
     @Operation(summary = "Process route optimization", 
@@ -44,35 +73,94 @@ public class RouteProcessingController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Route processed successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid request data"),
-        @ApiResponse(responseCode = "500", description = "Processing error")
+        @ApiResponse(responseCode = "429", description = "Too many routes in progress, see Retry-After"),
+        @ApiResponse(responseCode = "500", description = "Processing error"),
+        @ApiResponse(responseCode = "504", description = "Processing did not finish within the request deadline")
     })
-    public ResponseEntity<GrpcPythonMrlAmisService.RouteOptimizationResult> processRoute(
-            @Valid @RequestBody RouteProcessingRequest request) {
+    public DeferredResult<ResponseEntity<GrpcPythonMrlAmisService.RouteOptimizationResult>> processRoute(
+            @Valid @RequestBody RouteProcessingRequest request,
+            @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) Long timeoutSeconds) {
         
         logger.info("=== ROUTE PROCESSING REQUEST RECEIVED ===");
         logger.info("Route ID: {}", request.getRouteId());
         logger.info("User ID: {}", request.getUserId());
         logger.info("Number of POIs: {}", request.getPois() != null ? request.getPois().size() : 0);
         
+        DeferredResult<ResponseEntity<GrpcPythonMrlAmisService.RouteOptimizationResult>> response = new DeferredResult<>();
+        CompletableFuture<GrpcPythonMrlAmisService.RouteOptimizationResult> processing;
         try {
-            GrpcPythonMrlAmisService.RouteOptimizationResult result = 
-                grpcPythonMrlAmisService.processRoute(request);
-            
-            logger.info("=== ROUTE PROCESSING COMPLETED SUCCESSFULLY ===");
-            logger.info("Route ID: {}", request.getRouteId());
-            logger.info("Algorithm: {}", result.getAlgorithm());
-            logger.info("Total Distance: {} km", result.getTotalDistanceKm());
-            logger.info("Total Time: {} minutes", result.getTotalTimeMinutes());
-            logger.info("Optimization Score: {}", result.getOptimizationScore());
-            
-            return ResponseEntity.ok(result);
-            
-        } catch (Exception e) {
-            logger.error("=== ROUTE PROCESSING FAILED ===");
-            logger.error("Route ID: {}", request.getRouteId());
-            logger.error("Error: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            processing = grpcPythonMrlAmisService.processRouteAsync(request, toTimeout(timeoutSeconds), null);
+        } catch (AdmissionController.AdmissionRejectedException e) {
+            logger.warn("=== ROUTE PROCESSING REJECTED === Route ID: {}, retry after {}s", 
+                       request.getRouteId(), e.getRetryAfterSeconds());
+            response.setResult(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build());
+            return response;
+        }
+        
+        // Nadie va a leer la respuesta: liberar el trabajo
+        response.onTimeout(() -> {
+            logger.warn("=== ROUTE PROCESSING TIMED OUT === Route ID: {}", request.getRouteId());
+            processing.cancel(true);
+            response.setResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build());
+        });
+        response.onError(error -> {
+            logger.warn("=== ROUTE PROCESSING CLIENT GONE === Route ID: {}: {}", request.getRouteId(), error.getMessage());
+            processing.cancel(true);
+        });
+        
+        processing.whenComplete((result, error) -> {
+            if (error == null) {
+                logger.info("=== ROUTE PROCESSING COMPLETED SUCCESSFULLY ===");
+                logger.info("Route ID: {}", request.getRouteId());
+                logger.info("Algorithm: {}", result.getAlgorithm());
+                logger.info("Total Distance: {} km", result.getTotalDistanceKm());
+                logger.info("Total Time: {} minutes", result.getTotalTimeMinutes());
+                logger.info("Optimization Score: {}", result.getOptimizationScore());
+                response.setResult(ResponseEntity.ok(result));
+            } else if (Status.fromThrowable(error).getCode() == Status.Code.DEADLINE_EXCEEDED) {
+                logger.warn("=== ROUTE PROCESSING DEADLINE EXCEEDED === Route ID: {}", request.getRouteId());
+                response.setResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build());
+            } else if (!(error instanceof CancellationException)) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                logger.error("=== ROUTE PROCESSING FAILED ===");
+                logger.error("Route ID: {}", request.getRouteId());
+                logger.error("Error: {}", cause.getMessage(), cause);
+                response.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Process a batch of routes, streaming each result as NDJSON as soon as it is ready
+     */
+    @PostMapping(value = "/process-routes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Process a batch of route optimizations",
+               description = "Deduplicates identical routes, processes them with bounded concurrency and "
+                           + "streams one JSON line per route in completion order")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream of per-route results"),
+        @ApiResponse(responseCode = "400", description = "Invalid request data or too many routes")
+    })
+    public ResponseEntity<Flux<ConcurrentRouteProcessingService.BatchItemResult>> processRoutes(
+            @RequestBody List<@Valid RouteProcessingRequest> requests,
+            @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) Long timeoutSeconds) {
+        
+        logger.info("=== ROUTE BATCH RECEIVED === {} routes", requests.size());
+        if (requests.isEmpty() || requests.size() > processingConfig.getBatch().getMaxItems()) {
+            logger.warn("Rejected batch of {} routes (max {})", requests.size(), processingConfig.getBatch().getMaxItems());
+            return ResponseEntity.badRequest().build();
         }
+        return ResponseEntity.ok(concurrentRouteProcessingService.processBatch(requests, toTimeout(timeoutSeconds)));
+    }
+
+    /**
+     * Budget sent by the client, if any (the service caps it and applies the default)
+     */
+    static Duration toTimeout(Long timeoutSeconds) {
+        return timeoutSeconds != null && timeoutSeconds > 0 ? Duration.ofSeconds(timeoutSeconds) : null;
     }
 
     /**
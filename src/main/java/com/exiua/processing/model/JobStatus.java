@@ -7,6 +7,7 @@ public enum JobStatus {
     COMPLETED("Completado exitosamente", true, false),
     FAILED("Falló", true, true),
     TIMEOUT("Tiempo agotado", true, true),
+    CANCELLED("Cancelado", true, true),
     UNKNOWN("Estado desconocido", false, false);
 
     private final String description;
@@ -52,6 +53,8 @@ public enum JobStatus {
                 return FAILED;
             case "TIMEOUT":
                 return TIMEOUT;
+            case "CANCELLED", "CANCELED":
+                return CANCELLED;
             default:
                 return UNKNOWN;
         }
@@ -0,0 +1,138 @@
+package com.exiua.processing.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Límite adaptativo (AIMD) de trabajos MRL-AMIS en curso a la vez.
+ * <p>
+ * Mientras la latencia de OptimizeRoute se mantiene cerca de su línea base y el servicio
+ * Python informa de una cola corta, el límite crece en 1/limit por envío aceptado (≈ +1
+ * por ronda). Si la latencia se dispara, queue_position o estimated_wait_time_minutes
+ * superan sus umbrales o la RPC falla por sobrecarga, el límite se multiplica por
+ * backoff-ratio. Así evitamos acumular una cola de horas detrás nuestra en Python.
+ * <p>
+ * Es la única fuente de huecos del {@link SubmissionDispatcher}. El límite efectivo nunca
+ * supera processing.max-concurrent-requests, el tope configurado que siempre se respeta
+ * (con el limitador desactivado es el límite fijo), ni concurrency-limit.max-limit, el
+ * techo propio del AIMD. El estado interno tampoco crece por encima de ese tope, así que
+ * un recorte se nota en cuanto llega.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    // Como mucho un recorte por este intervalo: varias señales de la misma ráfaga cuentan una vez
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // La línea base de latencia sube muy despacio y baja en cuanto se observa algo mejor
+    private static final double BASELINE_EWMA_ALPHA = 0.05;
+
+    private final ProcessingConfigurationProperties.ConcurrencyLimit config;
+    // min(max-limit, max-concurrent-requests)
+    private final int ceiling;
+
+    private double limit;
+    private int inFlight;
+    private double baselineLatencyNanos = -1;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(ProcessingConfigurationProperties processingConfig, MeterRegistry meterRegistry) {
+        this.config = processingConfig.getConcurrencyLimit();
+        this.ceiling = Math.min(config.getMaxLimit(), processingConfig.getMaxConcurrentRequests());
+        this.limit = Math.min(config.getInitialLimit(), ceiling);
+
+        Gauge.builder("route.processing.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Trabajos MRL-AMIS permitidos a la vez según el limitador adaptativo")
+                .register(meterRegistry);
+        Gauge.builder("route.processing.concurrency.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Trabajos MRL-AMIS en curso enviados por este cliente")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ocupa un hueco si el límite actual lo permite
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= getLimit()) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+
+    /**
+     * Envío aceptado por MRL-AMIS: latencia de la RPC y estado de cola que devolvió
+     */
+    public synchronized void onSubmitSuccess(long latencyNanos, int queuePosition, int estimatedWaitMinutes) {
+        boolean latencyHigh = baselineLatencyNanos > 0
+                && latencyNanos > baselineLatencyNanos * config.getLatencyTolerance();
+        updateBaseline(latencyNanos);
+
+        if (latencyHigh) {
+            decrease("OptimizeRoute latency " + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + "ms");
+        } else if (queuePosition > config.getMaxQueuePosition()) {
+            decrease("queue position " + queuePosition);
+        } else if (estimatedWaitMinutes > config.getMaxEstimatedWaitMinutes()) {
+            decrease("estimated wait " + estimatedWaitMinutes + " min");
+        } else if (inFlight >= limit / 2) {
+            // Solo crecer si de verdad estamos usando el límite
+            limit = Math.min(ceiling, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Fallo de un intento de OptimizeRoute; solo los errores de sobrecarga recortan el límite
+     */
+    public synchronized void onSubmitFailure(Status status) {
+        switch (status.getCode()) {
+            case UNAVAILABLE, RESOURCE_EXHAUSTED, DEADLINE_EXCEEDED -> decrease("OptimizeRoute " + status.getCode());
+            default -> { }
+        }
+    }
+
+    public synchronized int getLimit() {
+        if (!config.isEnabled()) {
+            return ceiling;
+        }
+        return (int) Math.floor(limit);
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void updateBaseline(long latencyNanos) {
+        if (baselineLatencyNanos < 0 || latencyNanos < baselineLatencyNanos) {
+            baselineLatencyNanos = latencyNanos;
+        } else {
+            baselineLatencyNanos += BASELINE_EWMA_ALPHA * (latencyNanos - baselineLatencyNanos);
+        }
+    }
+
+    private void decrease(String reason) {
+        long now = System.nanoTime();
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < DECREASE_COOLDOWN_NANOS) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double previous = limit;
+        limit = Math.min(ceiling, Math.max(config.getMinLimit(), limit * config.getBackoffRatio()));
+        logger.info("Concurrency limit {} -> {} ({})", (int) previous, getLimit(), reason);
+    }
+}
@@ -0,0 +1,82 @@
+package com.exiua.processing.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Control de admisión de optimizaciones nuevas. Lo aplica el {@link SubmissionDispatcher} al
+ * encolar, sobre las colas por usuario, así que la decisión ya es justa entre usuarios:
+ * <ul>
+ *   <li>nadie tiene más de admission.per-user-max-queue-size envíos esperando;</li>
+ *   <li>con la cola llena (admission.max-queue-size) solo entra quien tiene menos envíos
+ *       esperando que su parte justa (max-queue-size entre los usuarios con cola), de modo
+ *       que un usuario que la llena no deja fuera a los demás.</li>
+ * </ul>
+ * Los rechazados reciben {@link AdmissionRejectedException} al momento, con un Retry-After
+ * estimado por el dispatcher con el {@link RuntimePredictor}.
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private final ProcessingConfigurationProperties.Admission config;
+    private final Counter rejectionsCounter;
+
+    public AdmissionController(ProcessingConfigurationProperties processingConfig, MeterRegistry meterRegistry) {
+        this.config = processingConfig.getAdmission();
+        this.rejectionsCounter = Counter.builder("route.processing.admission.rejections")
+                .description("Peticiones rechazadas por saturación")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Si un envío nuevo de un usuario puede esperar turno en la cola local
+     *
+     * @param userQueued  envíos de ese usuario ya esperando
+     * @param totalQueued envíos esperando en total
+     * @param queuedUsers usuarios con envíos esperando, contando a este
+     */
+    boolean admits(int userQueued, int totalQueued, int queuedUsers) {
+        if (userQueued >= config.getPerUserMaxQueueSize()) {
+            return false;
+        }
+        if (totalQueued < config.getMaxQueueSize()) {
+            return true;
+        }
+        // Cola llena: solo entra quien está por debajo de su parte justa
+        return userQueued < Math.max(1, config.getMaxQueueSize() / Math.max(1, queuedUsers));
+    }
+
+    /**
+     * Rechazo de un envío no admitido; el llamante lanza la excepción devuelta
+     */
+    AdmissionRejectedException reject(String userId, int userQueued, int totalQueued, long retryAfterSeconds) {
+        rejectionsCounter.increment();
+        logger.warn("Admission rejected for {}: {} queued by the user, {} queued in total, retry after {}s",
+                   userId, userQueued, totalQueued, retryAfterSeconds);
+        return new AdmissionRejectedException(retryAfterSeconds);
+    }
+
+    /**
+     * El servicio está saturado; el cliente debería reintentar pasados retryAfterSeconds
+     */
+    public static class AdmissionRejectedException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public AdmissionRejectedException(long retryAfterSeconds) {
+            super("Too many route optimizations in progress, retry after " + retryAfterSeconds + "s");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.exiua.processing.service;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import route.optimization.RouteOptimizationServiceGrpc;
+
+/**
+ * Circuit breaker de una réplica MRL-AMIS, instalado como interceptor en su canal.
+ * <p>
+ * Con el circuito cerrado cuenta el resultado de las últimas window-size llamadas: si la
+ * proporción de fallos (UNAVAILABLE, INTERNAL, ...) o de llamadas unarias lentas supera su
+ * umbral, el circuito se abre y toda llamada a la réplica falla al momento con UNAVAILABLE,
+ * sin tocar la red. Pasados open-seconds pasa a semiabierto y solo sale un HealthCheck de
+ * prueba: si la réplica responde sana el circuito se cierra, si no vuelve a abrirse.
+ * HealthCheck y GetQueueInfo (los sondeos) nunca pasan por el circuito.
+ * <p>
+ * DEADLINE_EXCEEDED no cuenta como fallo: el deadline suele ser el presupuesto de quien
+ * llama, y uno corto no dice nada de la réplica. Una réplica colgada se detecta igual, por
+ * las llamadas que agotan su tope por RPC (más largo que slow-call-duration-seconds).
+ * <p>
+ * Cada cambio de estado es una transición comprobada bajo el lock; solo quien abre el
+ * circuito programa el sondeo, así que hay como mucho una cadena de sondeos por réplica.
+ */
+class BackendCircuitBreaker implements ClientInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackendCircuitBreaker.class);
+
+    private static final Set<Status.Code> FAILURE_CODES = EnumSet.of(
+            Status.Code.UNAVAILABLE,
+            Status.Code.RESOURCE_EXHAUSTED,
+            Status.Code.INTERNAL,
+            Status.Code.UNKNOWN);
+
+    private static final Set<String> PROBE_METHODS = Set.of(
+            RouteOptimizationServiceGrpc.getHealthCheckMethod().getFullMethodName(),
+            RouteOptimizationServiceGrpc.getGetQueueInfoMethod().getFullMethodName());
+
+    enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String backendName;
+    private final GrpcPythonMrlAmisConfigurationProperties.CircuitBreaker config;
+    private final ScheduledExecutorService scheduler;
+    private final Counter rejectionsCounter;
+
+    // Ventana circular con el resultado de las últimas llamadas
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private volatile Supplier<CompletableFuture<Boolean>> healthProbe;
+
+    BackendCircuitBreaker(String backendName, GrpcPythonMrlAmisConfigurationProperties.CircuitBreaker config,
+            ScheduledExecutorService scheduler, MeterRegistry meterRegistry) {
+        this.backendName = backendName;
+        this.config = config;
+        this.scheduler = scheduler;
+        this.failed = new boolean[config.getWindowSize()];
+        this.slow = new boolean[config.getWindowSize()];
+
+        Gauge.builder("route.processing.backend.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .tag("backend", backendName)
+                .description("Estado del circuit breaker de la réplica: 0 cerrado, 1 semiabierto, 2 abierto")
+                .register(meterRegistry);
+        this.rejectionsCounter = Counter.builder("route.processing.backend.circuit.rejections")
+                .tag("backend", backendName)
+                .description("Llamadas rechazadas al momento por tener el circuito abierto")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sondeo usado en semiabierto; devuelve si la réplica está sana
+     */
+    void probeWith(Supplier<CompletableFuture<Boolean>> healthProbe) {
+        this.healthProbe = healthProbe;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+            CallOptions callOptions, Channel next) {
+        if (PROBE_METHODS.contains(method.getFullMethodName())) {
+            return next.newCall(method, callOptions);
+        }
+        if (!allowsCalls()) {
+            rejectionsCounter.increment();
+            return new RejectedCall<>(Status.UNAVAILABLE
+                    .withDescription("Circuit breaker open for MRL-AMIS backend " + backendName));
+        }
+
+        // WatchJob dura lo que dura el trabajo: de los streams solo cuenta si fallan
+        boolean timed = method.getType() == MethodDescriptor.MethodType.UNARY;
+        long startNanos = System.nanoTime();
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        record(status, timed ? System.nanoTime() - startNanos : 0);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    boolean allowsCalls() {
+        return !config.isEnabled() || getState() == State.CLOSED;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized double getFailureRate() {
+        return calls == 0 ? 0.0 : 100.0 * failures / calls;
+    }
+
+    synchronized double getSlowCallRate() {
+        return calls == 0 ? 0.0 : 100.0 * slowCalls / calls;
+    }
+
+    private void record(Status status, long durationNanos) {
+        if (status.getCode() == Status.Code.CANCELLED) {
+            // Cancelada por nosotros: no dice nada de la réplica
+            return;
+        }
+        boolean failure = FAILURE_CODES.contains(status.getCode());
+        boolean tooSlow = durationNanos > TimeUnit.SECONDS.toNanos(config.getSlowCallDurationSeconds());
+        double failureRate;
+        double slowCallRate;
+        int windowCalls;
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                // Llamadas que salieron antes de abrirse el circuito
+                return;
+            }
+            if (calls == failed.length) {
+                failures -= failed[next] ? 1 : 0;
+                slowCalls -= slow[next] ? 1 : 0;
+            } else {
+                calls++;
+            }
+            failed[next] = failure;
+            slow[next] = tooSlow;
+            failures += failure ? 1 : 0;
+            slowCalls += tooSlow ? 1 : 0;
+            next = (next + 1) % failed.length;
+
+            if (!config.isEnabled() || calls < config.getMinimumCalls()) {
+                return;
+            }
+            windowCalls = calls;
+            failureRate = 100.0 * failures / calls;
+            slowCallRate = 100.0 * slowCalls / calls;
+            if (failureRate < config.getFailureRateThreshold() && slowCallRate < config.getSlowCallRateThreshold()) {
+                return;
+            }
+        }
+        if (open(State.CLOSED)) {
+            logger.warn("🔌 Circuit opened for backend {}: {}% failed, {}% slow over the last {} calls",
+                       backendName, Math.round(failureRate), Math.round(slowCallRate), windowCalls);
+        }
+    }
+
+    /**
+     * Abre el circuito si sigue en {@code from} y programa el sondeo; si otro hilo ya cambió
+     * el estado no hace nada
+     */
+    private boolean open(State from) {
+        if (!transition(from, State.OPEN)) {
+            return false;
+        }
+        scheduler.schedule(this::probe, config.getOpenSeconds(), TimeUnit.SECONDS);
+        return true;
+    }
+
+    private synchronized boolean transition(State from, State to) {
+        if (state != from) {
+            return false;
+        }
+        state = to;
+        resetWindow();
+        return true;
+    }
+
+    /**
+     * Semiabierto: solo sale el HealthCheck de prueba
+     */
+    private void probe() {
+        if (!transition(State.OPEN, State.HALF_OPEN)) {
+            return;
+        }
+        Supplier<CompletableFuture<Boolean>> probe = healthProbe;
+        CompletableFuture<Boolean> result;
+        try {
+            result = probe != null ? probe.get() : CompletableFuture.completedFuture(true);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((healthy, error) -> {
+            if (error == null && Boolean.TRUE.equals(healthy)) {
+                if (transition(State.HALF_OPEN, State.CLOSED)) {
+                    logger.info("🔌 Circuit closed for backend {}: health probe succeeded", backendName);
+                }
+            } else if (open(State.HALF_OPEN)) {
+                logger.warn("🔌 Circuit stays open for backend {}: health probe failed ({})", backendName,
+                           error != null ? Status.fromThrowable(error).getDescription() : "not healthy");
+            }
+        });
+    }
+
+    private void resetWindow() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    /**
+     * Llamada que termina al empezar, sin salir a la red
+     */
+    private static class RejectedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+        private final Status status;
+
+        private RejectedCall(Status status) {
+            this.status = status;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            responseListener.onClose(status, new Metadata());
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+        }
+    }
+}
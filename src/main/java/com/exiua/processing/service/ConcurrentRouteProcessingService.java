@@ -1,6 +1,12 @@
 package com.exiua.processing.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
@@ -8,8 +14,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import com.exiua.processing.config.ProcessingConfigurationProperties;
 import com.exiua.processing.model.RouteProcessingRequest;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  * Service que expone procesamiento concurrente de rutas usando CompletableFuture
  * y el ThreadPoolTaskExecutor configurado.
@@ -21,26 +31,113 @@ public class ConcurrentRouteProcessingService {
 
     private final GrpcPythonMrlAmisService grpcService;
     private final Executor routeProcessingExecutor;
+    private final ProcessingConfigurationProperties processingConfig;
 
     public ConcurrentRouteProcessingService(
             GrpcPythonMrlAmisService grpcService,
-            @Qualifier("routeProcessingExecutor") Executor routeProcessingExecutor) {
+            @Qualifier("routeProcessingExecutor") Executor routeProcessingExecutor,
+            ProcessingConfigurationProperties processingConfig) {
         this.grpcService = grpcService;
         this.routeProcessingExecutor = routeProcessingExecutor;
+        this.processingConfig = processingConfig;
     }
 
     /**
-     * Ejecuta una optimización de forma asíncrona.
+     * Ejecuta una optimización de forma asíncrona sobre los stubs no bloqueantes de gRPC.
+     * La espera del trabajo no ocupa hilos; solo la continuación final se ejecuta en
+     * routeProcessingExecutor para no cargar los hilos de callbacks de gRPC.
+     * Cancelar el futuro devuelto cancela también la optimización.
      */
     public CompletableFuture<GrpcPythonMrlAmisService.RouteOptimizationResult> processAsync(RouteProcessingRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
+        return processAsync(request, null);
+    }
+
+    /**
+     * Igual que {@link #processAsync(RouteProcessingRequest)} con un presupuesto de tiempo
+     * total (null: el configurado por defecto)
+     */
+    public CompletableFuture<GrpcPythonMrlAmisService.RouteOptimizationResult> processAsync(RouteProcessingRequest request,
+            Duration timeout) {
+        log.info("Procesando optimización async para routeId={}", request.getRouteId());
+        CompletableFuture<GrpcPythonMrlAmisService.RouteOptimizationResult> processing =
+                grpcService.processRouteAsync(request, timeout, null);
+        return GrpcFutures.propagateCancellation(processing
+                .handleAsync((result, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        throw new RouteAsyncProcessingException("Fallo procesando ruta async: " + cause.getMessage(), cause);
+                    }
+                    return result;
+                }, routeProcessingExecutor), processing);
+    }
+
+    /**
+     * Procesa un lote de rutas. Las entradas idénticas (misma huella canónica) se procesan
+     * una sola vez (cada duplicado recibe una copia del resultado con su propio requestId);
+     * como mucho processing.batch.max-concurrency rutas distintas a la vez. Cada resultado
+     * se emite en cuanto está listo, sin esperar al resto del lote. Si el cliente se
+     * desconecta se cancelan las rutas que aún no han terminado. Todas las rutas comparten
+     * el presupuesto {@code timeout}, que empieza a contar al recibir el lote.
+     */
+    public Flux<BatchItemResult> processBatch(List<RouteProcessingRequest> requests, Duration timeout) {
+        // Agrupar por huella conservando el orden de llegada
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String key;
             try {
-                log.info("Procesando optimización async para routeId={}", request.getRouteId());
-                return grpcService.processRoute(request);
-            } catch (Exception e) {
-                throw new RouteAsyncProcessingException("Fallo procesando ruta async: " + e.getMessage(), e);
+                key = grpcService.fingerprintOf(requests.get(i));
+            } catch (RuntimeException e) {
+                // No se puede canonicalizar: se procesa (y falla) por separado
+                key = "item-" + i;
             }
-        }, routeProcessingExecutor);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        log.info("Procesando lote de {} rutas ({} distintas)", requests.size(), groups.size());
+        long deadlineNanos = System.nanoTime() + (timeout != null ? timeout.toNanos() : 0);
+
+        return Flux.fromIterable(groups.values())
+                .flatMap(indexes -> {
+                    RouteProcessingRequest representative = requests.get(indexes.get(0));
+                    // Lo que quede del presupuesto del lote cuando le toca turno a esta ruta
+                    Duration remaining = timeout != null
+                            ? Duration.ofNanos(Math.max(1, deadlineNanos - System.nanoTime())) : null;
+                    return Mono.fromFuture(() -> processAsync(representative, remaining))
+                            .map(result -> toItems(requests, indexes, result, null))
+                            .onErrorResume(error -> Mono.just(toItems(requests, indexes, null, error)));
+                }, processingConfig.getBatch().getMaxConcurrency())
+                .flatMapIterable(items -> items);
+    }
+
+    private static List<BatchItemResult> toItems(List<RouteProcessingRequest> requests, List<Integer> indexes,
+            GrpcPythonMrlAmisService.RouteOptimizationResult result, Throwable error) {
+        List<BatchItemResult> items = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            String routeId = requests.get(index).getRouteId();
+            if (error == null) {
+                // Cada duplicado recibe su propia copia con su routeId como requestId
+                GrpcPythonMrlAmisService.RouteOptimizationResult itemResult =
+                        index == indexes.get(0) ? result : result.withRequestId(routeId);
+                items.add(new BatchItemResult(index, routeId, "COMPLETED", itemResult, null));
+            } else {
+                Throwable cause = error instanceof RouteAsyncProcessingException && error.getCause() != null
+                        ? error.getCause() : error;
+                String status = cause instanceof AdmissionController.AdmissionRejectedException ? "REJECTED" : "FAILED";
+                items.add(new BatchItemResult(index, routeId, status, null, cause.getMessage()));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Resultado de una ruta del lote; index es su posición en la petición
+     */
+    public record BatchItemResult(
+            int index,
+            String routeId,
+            String status,
+            GrpcPythonMrlAmisService.RouteOptimizationResult result,
+            String error) {
     }
 
     public static class RouteAsyncProcessingException extends RuntimeException {
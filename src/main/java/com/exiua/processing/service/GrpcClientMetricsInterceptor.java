@@ -0,0 +1,107 @@
+package com.exiua.processing.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.MessageLite;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas por RPC del canal de una réplica MRL-AMIS, etiquetadas con method y backend:
+ * <ul>
+ *   <li>route.processing.grpc.client.calls: latencia (histograma) y número de llamadas por status</li>
+ *   <li>route.processing.grpc.client.request.bytes / response.bytes: tamaño serializado de cada
+ *       mensaje enviado y recibido (POIs de la petición, optimized_sequence del resultado), con
+ *       unos pocos buckets fijos de 256 B a 4 MiB (el tope por defecto de un mensaje gRPC)</li>
+ * </ul>
+ * Va el último en la cadena de interceptores, así solo ve las llamadas que salen a la red.
+ */
+class GrpcClientMetricsInterceptor implements ClientInterceptor {
+
+    // Buckets ×4 de 256 B a 4 MiB: ocho series por método y réplica en lugar de la escalera completa
+    private static final double[] BYTE_BUCKETS = {
+        256, 1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024, 4 * 1024 * 1024
+    };
+
+    private final String backendName;
+    private final MeterRegistry meterRegistry;
+
+    GrpcClientMetricsInterceptor(String backendName, MeterRegistry meterRegistry) {
+        this.backendName = backendName;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+            CallOptions callOptions, Channel next) {
+        String methodName = method.getBareMethodName();
+        DistributionSummary requestBytes = bytesSummary("route.processing.grpc.client.request.bytes",
+                methodName, "Tamaño serializado de los mensajes enviados a MRL-AMIS");
+        DistributionSummary responseBytes = bytesSummary("route.processing.grpc.client.response.bytes",
+                methodName, "Tamaño serializado de los mensajes recibidos de MRL-AMIS");
+        long startNanos = System.nanoTime();
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onMessage(RespT message) {
+                        recordSize(responseBytes, message);
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        Timer.builder("route.processing.grpc.client.calls")
+                                .tag("method", methodName)
+                                .tag("backend", backendName)
+                                .tag("status", status.getCode().name())
+                                .description("Llamadas gRPC a MRL-AMIS por método y status")
+                                .publishPercentileHistogram()
+                                .minimumExpectedValue(Duration.ofMillis(1))
+                                .maximumExpectedValue(Duration.ofMinutes(30))
+                                .register(meterRegistry)
+                                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                recordSize(requestBytes, message);
+                super.sendMessage(message);
+            }
+        };
+    }
+
+    private DistributionSummary bytesSummary(String name, String methodName, String description) {
+        return DistributionSummary.builder(name)
+                .tag("method", methodName)
+                .tag("backend", backendName)
+                .baseUnit("bytes")
+                .description(description)
+                .serviceLevelObjectives(BYTE_BUCKETS)
+                .register(meterRegistry);
+    }
+
+    private static void recordSize(DistributionSummary summary, Object message) {
+        if (message instanceof MessageLite protoMessage) {
+            // Protobuf memoriza el tamaño: el marshaller no vuelve a calcularlo al serializar
+            summary.record(protoMessage.getSerializedSize());
+        }
+    }
+}
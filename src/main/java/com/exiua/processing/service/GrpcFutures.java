@@ -0,0 +1,62 @@
+package com.exiua.processing.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Adaptadores entre los ListenableFuture de los stubs gRPC y CompletableFuture, y utilidades
+ * de cancelación entre futuros encadenados
+ */
+final class GrpcFutures {
+
+    private GrpcFutures() {
+    }
+
+    /**
+     * Convierte un ListenableFuture en CompletableFuture. Cancelar el CompletableFuture
+     * cancela también la llamada gRPC subyacente.
+     */
+    static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
+        CompletableFuture<T> future = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                listenableFuture.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        Futures.addCallback(listenableFuture, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+
+        return future;
+    }
+
+    /**
+     * Cancela {@code upstream} cuando se cancela {@code dependent}. CompletableFuture no
+     * propaga la cancelación hacia atrás por thenApply/whenComplete/handleAsync.
+     *
+     * @return el mismo {@code dependent}, para encadenar
+     */
+    static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> dependent, Future<?> upstream) {
+        dependent.whenComplete((value, error) -> {
+            if (dependent.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+        return dependent;
+    }
+}
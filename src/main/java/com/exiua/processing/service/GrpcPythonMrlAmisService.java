@@ -1,25 +1,43 @@
 package com.exiua.processing.service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
 import com.exiua.processing.model.ProcessingPOI;
 import com.exiua.processing.model.RouteProcessingRequest;
 
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import route.optimization.RouteOptimization;
-import route.optimization.RouteOptimizationServiceGrpc;
 
 /**
  * gRPC client service for communicating with Python MRL-AMIS model
@@ -29,54 +47,147 @@ public class GrpcPythonMrlAmisService {
     
     private static final Logger logger = LoggerFactory.getLogger(GrpcPythonMrlAmisService.class);
     
+    /**
+     * Fallos de OptimizeRoute que se pueden reintentar sin riesgo de duplicar el trabajo: la
+     * réplica no llegó a aceptarlo. Un DEADLINE_EXCEEDED tras enviar puede haber dejado el
+     * trabajo encolado en Python, así que no se reintenta.
+     */
+    private static final Set<Status.Code> RETRYABLE_SUBMIT_CODES = Set.of(
+            Status.Code.UNAVAILABLE,
+            Status.Code.RESOURCE_EXHAUSTED);
+
+    // Margen mínimo de CancelJob aunque el presupuesto del trabajo ya se haya agotado
+    private static final long CANCEL_GRACE_MILLIS = 2000;
+    
     private final GrpcPythonMrlAmisConfigurationProperties grpcConfig;
-    private ManagedChannel channel;
-    private RouteOptimizationServiceGrpc.RouteOptimizationServiceBlockingStub blockingStub;
+    private MrlAmisBackendPool backendPool;
+    private OptimizeRouteBatcher submitBatcher;
+    private final RetryBudget retryBudget;
+    private final RequestHedger requestHedger;
+    private final RouteStageMetrics stageMetrics;
+    private final ScheduledExecutorService scheduler;
+    private final JobTracker jobTracker;
+    private final RouteRequestCoalescer requestCoalescer;
+    private final RouteResultCache resultCache;
+    private final PersistentResultStore resultStore;
+    private final SubmissionDispatcher submissionDispatcher;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RuntimePredictor runtimePredictor;
+    private final MeterRegistry meterRegistry;
+    private final Counter savedCpuMinutesCounter;
+    // Oyentes de progreso por huella: todas las peticiones que comparten un trabajo lo ven avanzar
+    private final Map<String, ProgressFanOut> progressListeners = new ConcurrentHashMap<>();
 
-    public GrpcPythonMrlAmisService(GrpcPythonMrlAmisConfigurationProperties grpcConfig) {
+    public GrpcPythonMrlAmisService(
+            GrpcPythonMrlAmisConfigurationProperties grpcConfig,
+            @Qualifier("routeProcessingScheduler") ScheduledExecutorService scheduler,
+            JobTracker jobTracker,
+            RouteRequestCoalescer requestCoalescer,
+            RouteResultCache resultCache,
+            PersistentResultStore resultStore,
+            SubmissionDispatcher submissionDispatcher,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            RuntimePredictor runtimePredictor,
+            MeterRegistry meterRegistry) {
         this.grpcConfig = grpcConfig;
+        this.scheduler = scheduler;
+        this.jobTracker = jobTracker;
+        this.requestCoalescer = requestCoalescer;
+        this.resultCache = resultCache;
+        this.resultStore = resultStore;
+        this.submissionDispatcher = submissionDispatcher;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.runtimePredictor = runtimePredictor;
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(grpcConfig.getRetry(), meterRegistry);
+        this.requestHedger = new RequestHedger(grpcConfig.getHedging(), scheduler, meterRegistry);
+        this.stageMetrics = new RouteStageMetrics(meterRegistry);
+        this.savedCpuMinutesCounter = Counter.builder("route.processing.cancellation.cpu.minutes.saved")
+                .description("Minutos de CPU de MRL-AMIS ahorrados al cancelar trabajos que ya nadie esperaba")
+                .register(meterRegistry);
     }
 
     @PostConstruct
     public void initialize() {
-        logger.info("Initializing gRPC connection to Python MRL-AMIS service at {}:{}", 
-                   grpcConfig.getHost(), grpcConfig.getPort());
+        List<String> addresses = grpcConfig.getBackends().isEmpty()
+                ? List.of(grpcConfig.getHost() + ":" + grpcConfig.getPort())
+                : grpcConfig.getBackends();
         
-        // Build gRPC channel
-        ManagedChannelBuilder<?> channelBuilder = ManagedChannelBuilder
-                .forAddress(grpcConfig.getHost(), grpcConfig.getPort());
+        logger.info("Initializing gRPC connection to Python MRL-AMIS service at {}", addresses);
         
-        if (!grpcConfig.isEnableTls()) {
-            channelBuilder.usePlaintext();
+        List<MrlAmisBackend> backends = new ArrayList<>();
+        for (String address : addresses) {
+            String name = address.trim();
+            BackendCircuitBreaker circuitBreaker = 
+                new BackendCircuitBreaker(name, grpcConfig.getCircuitBreaker(), scheduler, meterRegistry);
+            ManagedChannel channel = buildChannel(name, 
+                    new GrpcClientMetricsInterceptor(name, meterRegistry), circuitBreaker);
+            MrlAmisBackend backend = new MrlAmisBackend(name, channel, circuitBreaker);
+            circuitBreaker.probeWith(() -> healthProbe(backend));
+            backends.add(backend);
+        }
+        backendPool = new MrlAmisBackendPool(backends, grpcConfig.getConnectionTimeoutSeconds());
+        backendPool.startProbing(scheduler, grpcConfig.getBackendProbeIntervalSeconds());
+        if (grpcConfig.isSubmitBatchEnabled()) {
+            submitBatcher = new OptimizeRouteBatcher(backendPool, scheduler, grpcConfig.getSubmitBatchMaxSize(),
+                    grpcConfig.getSubmitBatchWindowMillis(), grpcConfig.getRequestTimeoutSeconds());
         }
         
-        channel = channelBuilder.build();
+        // El tracker central consulta el estado de todos los trabajos en curso
+        jobTracker.start(this::getJobStatusesAsync);
         
-        // Create stub WITHOUT deadline - we'll set fresh deadline per call
-        blockingStub = RouteOptimizationServiceGrpc.newBlockingStub(channel);
+        // Test connection (sin bloquear el arranque)
+        backends.forEach(this::testConnection);
+    }
+
+    /**
+     * Build gRPC channel for one host:port replica. gRPC ejecuta los interceptores del último
+     * al primero: el primero de la lista es el más cercano a la red.
+     */
+    private ManagedChannel buildChannel(String address, ClientInterceptor... interceptors) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid MRL-AMIS backend address (expected host:port): " + address);
+        }
         
-        // Test connection
-        try {
-            testConnection();
-            logger.info("gRPC connection to Python MRL-AMIS service established successfully");
-        } catch (Exception e) {
-            logger.warn("Initial gRPC connection test failed: {}", e.getMessage());
+        ManagedChannelBuilder<?> channelBuilder = ManagedChannelBuilder
+                .forAddress(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)));
+        
+        if (!grpcConfig.isEnableTls()) {
+            channelBuilder.usePlaintext();
         }
+        channelBuilder.intercept(interceptors);
+        
+        return channelBuilder.build();
     }
 
     @PreDestroy
     public void shutdown() {
-        if (channel != null && !channel.isShutdown()) {
-            logger.info("Shutting down gRPC channel");
-            try {
-                channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                logger.warn("Interrupted while shutting down gRPC channel", e);
-                Thread.currentThread().interrupt();
+        if (backendPool == null) {
+            return;
+        }
+        backendPool.stopProbing();
+        for (MrlAmisBackend backend : backendPool.getBackends()) {
+            ManagedChannel channel = backend.getChannel();
+            if (!channel.isShutdown()) {
+                logger.info("Shutting down gRPC channel to {}", backend.getName());
+                try {
+                    channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    logger.warn("Interrupted while shutting down gRPC channel", e);
+                    Thread.currentThread().interrupt();
+                }
             }
         }
     }
 
+    /**
+     * Réplicas MRL-AMIS configuradas y su última carga conocida
+     */
+    public List<MrlAmisBackend> getBackends() {
+        return backendPool.getBackends();
+    }
+
     /**
      * Resultado de una operación de polling
      */
@@ -165,14 +276,41 @@ public class GrpcPythonMrlAmisService {
     }
 
     /**
-     * Process route optimization using gRPC communication with Python MRL-AMIS model
+     * Process route optimization using gRPC communication with Python MRL-AMIS model.
+     * Versión síncrona: espera el resultado de {@link #processRouteAsync(RouteProcessingRequest)}.
+     */
+    public RouteOptimizationResult processRoute(RouteProcessingRequest request) throws Exception {
+        try {
+            return processRouteAsync(request).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Route processing failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Process route optimization without blocking: submit, status checks and result fetch
+     * are chained on gRPC callbacks, so waiting jobs do not hold any thread. Identical
+     * requests are served from the result cache or share the MRL-AMIS job already in flight.
+     * Cancelar el futuro devuelto retira la petición; si nadie más espera ese trabajo se
+     * cancela también en MRL-AMIS (CancelJob).
+     *
+     * @throws AdmissionController.AdmissionRejectedException si hay demasiadas optimizaciones en curso
      */
-// ...existing code...
+    public CompletableFuture<RouteOptimizationResult> processRouteAsync(RouteProcessingRequest request) {
+        return processRouteAsync(request, null, null);
+    }
 
     /**
-     * Process route optimization using gRPC communication with Python MRL-AMIS model
+     * Igual que {@link #processRouteAsync(RouteProcessingRequest)}, con un presupuesto de tiempo
+     * total para la petición (null: request-deadline-seconds) y avisando a progressListener
+     * de cada estado del trabajo MRL-AMIS (envío, WatchJob o polling) hasta que termina.
+     * El presupuesto cubre la espera local, el envío, el seguimiento y la descarga del
+     * resultado; al agotarse el futuro falla con DEADLINE_EXCEEDED y no sale ninguna llamada más.
      */
-    public RouteOptimizationResult processRoute(RouteProcessingRequest request) throws Exception {
+    public CompletableFuture<RouteOptimizationResult> processRouteAsync(RouteProcessingRequest request,
+            Duration timeout, Consumer<RouteOptimization.JobStatusResponse> progressListener) {
+        Deadline deadline = requestDeadline(timeout);
         logger.info("╔════════════════════════════════════════════════════════════════");
         logger.info("║ PROCESSING ROUTE VIA GRPC");
         logger.info("║ Route ID: {}", request.getRouteId());
@@ -180,130 +318,499 @@ public class GrpcPythonMrlAmisService {
         logger.info("║ Number of POIs: {}", request.getPois() != null ? request.getPois().size() : 0);
         logger.info("╚════════════════════════════════════════════════════════════════");
         
+        // 1. Convertir solicitud a formato gRPC
+        RouteOptimization.RouteOptimizationRequest grpcRequest;
+        String fingerprint;
         try {
-            // 1. Convertir solicitud a formato gRPC
-            RouteOptimization.RouteOptimizationRequest grpcRequest = 
-                    convertToGrpcRequest(request);
-            
-            logger.info("→ Sending gRPC request to Python service...");
-            logGrpcRequest(grpcRequest);
-            
-            // 2. Enviar solicitud inicial
-            RouteOptimization.RouteOptimizationResponse initialResponse = 
-                    callWithRetry(grpcRequest);
-            
-            logger.info("← Received initial gRPC response");
-            logGrpcResponse(initialResponse, "INITIAL");
-            
-            // 3. Crear resultado de polling inicial
-            PollingResult pollingResult = GrpcResponseFactory.createPollingResult(initialResponse, 0);
-            logger.info("📊 Polling Result: {}", pollingResult);
-            
-            // 4. Si está en cola o procesando, hacer polling
-            if (pollingResult.shouldRetry()) {
-                logger.info("⏳ Job {} is {}, starting polling...", 
-                           pollingResult.getJobId(), pollingResult.getStatus());
-                
-                pollingResult = pollJobUntilComplete(
-                    pollingResult.getJobId(), 
-                    request.getRouteId()
-                );
-            }
-            
-            // 5. Verificar resultado final
-            if (pollingResult.getStatus().isError()) {
-                String errorMsg = String.format(
-                    "Optimization failed with status %s: %s", 
-                    pollingResult.getStatus(), 
-                    pollingResult.getMessage()
-                );
-                logger.error("❌ {}", errorMsg);
-                throw new RuntimeException(errorMsg);
+            long conversionStart = System.nanoTime();
+            grpcRequest = convertToGrpcRequest(request);
+            stageMetrics.record(RouteStageMetrics.Stage.CONVERSION, grpcRequest, System.nanoTime() - conversionStart);
+            fingerprint = RouteRequestFingerprint.of(grpcRequest);
+        } catch (RuntimeException e) {
+            logger.error("💥 Error converting route request", e);
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        // Petición idéntica ya resuelta: responder desde caché
+        RouteOptimization.RouteOptimizationResponse cached = resultCache.get(fingerprint);
+        if (cached != null) {
+            logger.info("⚡ Serving route {} from result cache", request.getRouteId());
+            return CompletableFuture.completedFuture(toOptimizationResult(request, grpcRequest, cached));
+        }
+        
+        // Segundo nivel: resultados persistidos en disco (sobreviven reinicios)
+        RouteOptimization.RouteOptimizationResponse stored = resultStore.get(fingerprint);
+        if (stored != null) {
+            logger.info("⚡ Serving route {} from persistent result store", request.getRouteId());
+            resultCache.put(fingerprint, stored);
+            return CompletableFuture.completedFuture(toOptimizationResult(request, grpcRequest, stored));
+        }
+        
+        // 2-5. Enviar (o engancharse a un trabajo idéntico en curso) y esperar el resultado
+        if (progressListener != null) {
+            addProgressListener(fingerprint, progressListener);
+        }
+        CompletableFuture<RouteOptimization.RouteOptimizationResponse> shared;
+        try {
+            // Solo quien lanza un trabajo nuevo pide admisión; si el servicio está saturado
+            // se rechaza aquí mismo (AdmissionRejectedException)
+            shared = requestCoalescer.execute(fingerprint, deadline,
+                    budget -> launch(request, grpcRequest, fingerprint, budget));
+        } catch (RuntimeException e) {
+            if (progressListener != null) {
+                removeProgressListener(fingerprint, progressListener);
             }
-            
-            // 6. Convertir a resultado final
-            RouteOptimizationResult result = GrpcResponseFactory.createOptimizationResult(
-                pollingResult.getGrpcResponse()
-            );
-            
-            logger.info("✅ Route processing completed successfully");
-            logger.info("   Score: {}, Distance: {}km, Time: {}min", 
-                       result.getOptimizationScore(),
-                       result.getTotalDistanceKm(),
-                       result.getTotalTimeMinutes());
-            
-            return result;
-            
-        } catch (Exception e) {
-            logger.error("💥 Error in gRPC route processing", e);
-            throw new RuntimeException("Route processing failed: " + e.getMessage(), e);
+            throw e;
         }
+        // Si quien llama cancela, se cancela su copia del trabajo compartido
+        CompletableFuture<Void> abandoned = new CompletableFuture<>();
+        abandoned.thenRun(() -> shared.cancel(true));
+        CompletableFuture<RouteOptimizationResult> result = shared
+            .thenApply(response -> toOptimizationResult(request, grpcRequest, response))
+            .whenComplete((optimizationResult, error) -> {
+                if (progressListener != null) {
+                    removeProgressListener(fingerprint, progressListener);
+                }
+                if (error != null && !(error instanceof CancellationException)) {
+                    logger.error("💥 Error in gRPC route processing", 
+                                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                }
+            });
+        // Presupuesto propio de quien llama, aunque comparta un trabajo lanzado por otro
+        ScheduledFuture<?> expiry = scheduler.schedule(() -> {
+            if (result.completeExceptionally(deadlineExhausted("the route was optimized"))) {
+                logger.warn("⏱️  Route {} request deadline exhausted", request.getRouteId());
+                if (progressListener != null) {
+                    removeProgressListener(fingerprint, progressListener);
+                }
+                abandoned.complete(null);
+            }
+        }, deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        result.whenComplete((optimizationResult, error) -> {
+            expiry.cancel(false);
+            if (result.isCancelled()) {
+                logger.info("Route {} request cancelled by caller", request.getRouteId());
+                if (progressListener != null) {
+                    removeProgressListener(fingerprint, progressListener);
+                }
+                abandoned.complete(null);
+            }
+        });
+        return result;
     }
 
     /**
-     * Test gRPC connection with health check
+     * Lanza el trabajo compartido de una huella: turno en el {@link SubmissionDispatcher},
+     * que decide la admisión por usuario, y optimización. El hueco es del trabajo, no de
+     * quien lo lanzó: se libera cuando el trabajo termina o cuando lo cancela el último
+     * interesado. Corre con el presupuesto compartido del trabajo, que alargan las peticiones
+     * que se enganchan con más margen.
+     *
+     * @throws AdmissionController.AdmissionRejectedException si el usuario no puede encolar más
      */
-    private void testConnection() {
-        String requestId = "health-" + System.currentTimeMillis();
-        
+    private CompletableFuture<RouteOptimization.RouteOptimizationResponse> launch(RouteProcessingRequest request,
+            RouteOptimization.RouteOptimizationRequest grpcRequest, String fingerprint, RequestBudget budget) {
+        double predictedSeconds = runtimePredictor.predictSeconds(grpcRequest);
+        publishProgress(fingerprint, locallyQueuedStatus(grpcRequest, predictedSeconds));
+        CompletableFuture<RouteOptimization.RouteOptimizationResponse> dispatched =
+            submissionDispatcher.submit(request.getUserId(), predictedSeconds,
+                () -> optimize(grpcRequest, predictedSeconds, budget,
+                        status -> publishProgress(fingerprint, status)));
+
+        CompletableFuture<RouteOptimization.RouteOptimizationResponse> launched = dispatched.whenComplete((response, error) -> {
+            if (response != null) {
+                runtimePredictor.observe(grpcRequest, response.getMetrics().getExecutionTimeSeconds());
+            }
+            resultCache.put(fingerprint, response);
+            resultStore.put(fingerprint, response);
+        });
+        // Cancelar el trabajo compartido lo saca de la cola o cancela su optimización
+        return GrpcFutures.propagateCancellation(launched, dispatched);
+    }
+
+    /**
+     * Estado mientras el envío espera en la cola local, con la hora de fin estimada por el
+     * modelo de duración (espera en cola + duración predicha)
+     */
+    private RouteOptimization.JobStatusResponse locallyQueuedStatus(RouteOptimization.RouteOptimizationRequest grpcRequest,
+            double predictedSeconds) {
+        long etaSeconds = Math.round(submissionDispatcher.estimateWaitSeconds() + predictedSeconds);
+        return RouteOptimization.JobStatusResponse.newBuilder()
+                .setRouteId(grpcRequest.getRouteId())
+                .setStatus("QUEUED")
+                .setMessage("Waiting for a free MRL-AMIS slot")
+                .setEstimatedCompletionTime(OffsetDateTime.now().plusSeconds(etaSeconds).toString())
+                .setQueuePosition(submissionDispatcher.getQueueDepth() + 1)
+                .build();
+    }
+
+    private void addProgressListener(String fingerprint, Consumer<RouteOptimization.JobStatusResponse> listener) {
+        ProgressFanOut fanOut = progressListeners.compute(fingerprint, (key, existing) -> {
+            ProgressFanOut target = existing != null ? existing : new ProgressFanOut();
+            target.listeners.add(listener);
+            return target;
+        });
+        // Quien se engancha a un trabajo ya en curso recibe el último estado conocido
+        RouteOptimization.JobStatusResponse last = fanOut.lastStatus;
+        if (last != null) {
+            notifyListener(listener, last);
+        }
+    }
+
+    private void removeProgressListener(String fingerprint, Consumer<RouteOptimization.JobStatusResponse> listener) {
+        progressListeners.computeIfPresent(fingerprint, (key, fanOut) -> {
+            fanOut.listeners.remove(listener);
+            return fanOut.listeners.isEmpty() ? null : fanOut;
+        });
+    }
+
+    private void publishProgress(String fingerprint, RouteOptimization.JobStatusResponse status) {
+        ProgressFanOut fanOut = progressListeners.get(fingerprint);
+        if (fanOut == null) {
+            return;
+        }
+        fanOut.lastStatus = status;
+        for (Consumer<RouteOptimization.JobStatusResponse> listener : fanOut.listeners) {
+            notifyListener(listener, status);
+        }
+    }
+
+    private void notifyListener(Consumer<RouteOptimization.JobStatusResponse> listener,
+            RouteOptimization.JobStatusResponse status) {
         try {
-            RouteOptimization.HealthRequest healthRequest = 
-                RouteOptimization.HealthRequest.newBuilder()
-                    .setServiceName("route-processing-service")
-                    .build();
-            
-            RouteOptimization.HealthResponse healthResponse = 
-                blockingStub.withDeadlineAfter(grpcConfig.getConnectionTimeoutSeconds(), TimeUnit.SECONDS)
-                           .healthCheck(healthRequest);
-            
-            logger.info("Health check response: healthy={}, status={}, version={}", 
-                       healthResponse.getIsHealthy(), healthResponse.getStatus(), healthResponse.getVersion());
-            
-            
-        } catch (Exception e) {
-            
-            throw new RuntimeException("Health check failed", e);
+            listener.accept(status);
+        } catch (RuntimeException e) {
+            logger.warn("Progress listener failed for job {}", status.getJobId(), e);
         }
     }
 
     /**
-     * Call gRPC service with retry logic
+     * Oyentes de progreso de un trabajo compartido y su último estado
      */
-    private RouteOptimization.RouteOptimizationResponse callWithRetry(
-            RouteOptimization.RouteOptimizationRequest request) throws Exception {
+    private static class ProgressFanOut {
+        private final Set<Consumer<RouteOptimization.JobStatusResponse>> listeners = ConcurrentHashMap.newKeySet();
+        private volatile RouteOptimization.JobStatusResponse lastStatus;
+    }
+
+    /**
+     * 6. Convertir a resultado final. La respuesta puede venir de caché o de un trabajo
+     * compartido, así que el resultado lleva el routeId de quien lo pidió.
+     */
+    private RouteOptimizationResult toOptimizationResult(RouteProcessingRequest request,
+            RouteOptimization.RouteOptimizationRequest grpcRequest, RouteOptimization.RouteOptimizationResponse response) {
+        long mappingStart = System.nanoTime();
+        RouteOptimizationResult result = GrpcResponseFactory.createOptimizationResult(response);
+        result.setRequestId(request.getRouteId());
+        stageMetrics.record(RouteStageMetrics.Stage.RESPONSE_MAPPING, grpcRequest, System.nanoTime() - mappingStart);
         
-        Exception lastException = null;
-        String requestId = request.getRouteId() + "-retry-" + System.currentTimeMillis();
+        logger.info("✅ Route processing completed successfully");
+        logger.info("   Score: {}, Distance: {}km, Time: {}min", 
+                   result.getOptimizationScore(),
+                   result.getTotalDistanceKm(),
+                   result.getTotalTimeMinutes());
         
-        for (int attempt = 1; attempt <= grpcConfig.getMaxRetryAttempts(); attempt++) {
-            try {
-                logger.info("gRPC call attempt {} of {}", attempt, grpcConfig.getMaxRetryAttempts());
-                
-                // Create a NEW stub with a FRESH deadline for each retry attempt
-                RouteOptimizationServiceGrpc.RouteOptimizationServiceBlockingStub stubWithDeadline = 
-                    blockingStub.withDeadlineAfter(grpcConfig.getRequestTimeoutSeconds(), TimeUnit.SECONDS);
-                
-                return stubWithDeadline.optimizeRoute(request);
+        return result;
+    }
+
+    /**
+     * Envía la optimización a MRL-AMIS y espera su respuesta completa. Si el futuro devuelto
+     * se cancela, o la espera se agota (TIMEOUT), el trabajo se cancela en MRL-AMIS.
+     */
+    private CompletableFuture<RouteOptimization.RouteOptimizationResponse> optimize(
+            RouteOptimization.RouteOptimizationRequest grpcRequest,
+            double predictedSeconds,
+            RequestBudget budget,
+            Consumer<RouteOptimization.JobStatusResponse> progressListener) {
+        
+        logger.info("→ Sending gRPC request to Python service...");
+        logGrpcRequest(grpcRequest);
+        
+        // 2. Enviar solicitud inicial
+        long submitStart = System.nanoTime();
+        CompletableFuture<RouteOptimization.RouteOptimizationResponse> submitted = callWithRetry(grpcRequest, budget);
+        CompletableFuture<Void> abandoned = new CompletableFuture<>();
+        CompletableFuture<RouteOptimization.RouteOptimizationResponse> outcome = submitted
+            .thenCompose(initialResponse -> {
+                logger.info("← Received initial gRPC response");
+                logGrpcResponse(initialResponse, "INITIAL");
+                stageMetrics.record(RouteStageMetrics.Stage.SUBMIT, grpcRequest, System.nanoTime() - submitStart);
+                // Cola, proceso y detección se miden con los estados que vayan llegando
+                RouteStageMetrics.JobClock jobClock = stageMetrics.startJob(grpcRequest);
+                Consumer<RouteOptimization.JobStatusResponse> statusListener = jobClock.andThen(progressListener);
+                statusListener.accept(JobTracker.initialStatus(initialResponse));
                 
-            } catch (StatusRuntimeException e) {
-                lastException = e;
-                logger.warn("gRPC call attempt {} failed: {}", attempt, e.getStatus().getDescription());
+                // 3. Crear resultado de polling inicial
+                PollingResult pollingResult = GrpcResponseFactory.createPollingResult(initialResponse, 0);
+                logger.info("📊 Polling Result: {}", pollingResult);
                 
-                if (attempt < grpcConfig.getMaxRetryAttempts()) {
-                    // Wait before retry (exponential backoff)
-                    try {
-                        long waitTime = (long) (Math.pow(2, attempt - 1) * 1000); // 1s, 2s, 4s, etc.
-                        logger.info("Waiting {}ms before retry", waitTime);
-                        Thread.sleep(waitTime);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Interrupted during retry wait", ie);
-                    }
+                // 4. Si está en cola o procesando, esperar a que termine
+                if (pollingResult.shouldRetry()) {
+                    AcceptedJob job = new AcceptedJob(pollingResult.getJobId(), 
+                            backendPool.backendFor(pollingResult.getJobId()), System.nanoTime());
+                    abandoned.thenRun(() -> cancelJob(job, predictedSeconds, "abandoned", budget));
+                    logger.info("⏳ Job {} is {}, waiting for completion...", 
+                               pollingResult.getJobId(), pollingResult.getStatus());
+                    return awaitJobCompletion(initialResponse, budget, statusListener)
+                        .thenApply(finalResult -> {
+                            if (finalResult.getStatus() == JobStatus.COMPLETED) {
+                                jobClock.resultFetched();
+                            }
+                            if (finalResult.getStatus() == JobStatus.TIMEOUT) {
+                                // Nadie va a recoger el resultado: no dejar el trabajo consumiendo CPU
+                                cancelJob(job, predictedSeconds, "timeout", budget);
+                            }
+                            return finalResult;
+                        });
+                }
+                backendPool.release(pollingResult.getJobId());
+                return CompletableFuture.completedFuture(pollingResult);
+            })
+            .thenApply(pollingResult -> {
+                // 5. Verificar resultado final
+                if (pollingResult.getStatus() == JobStatus.TIMEOUT) {
+                    logger.error("❌ Optimization timed out: {}", pollingResult.getMessage());
+                    throw Status.DEADLINE_EXCEEDED.withDescription(pollingResult.getMessage()).asRuntimeException();
+                }
+                if (pollingResult.getStatus().isError()) {
+                    String errorMsg = String.format(
+                        "Optimization failed with status %s: %s", 
+                        pollingResult.getStatus(), 
+                        pollingResult.getMessage()
+                    );
+                    logger.error("❌ {}", errorMsg);
+                    throw new RuntimeException(errorMsg);
                 }
+                return pollingResult.getGrpcResponse();
+            });
+        
+        outcome.whenComplete((response, error) -> {
+            if (outcome.isCancelled()) {
+                // Si aún no se había aceptado, attemptOptimizeRoute cancela el trabajo cuando llegue
+                submitted.cancel(true);
+                abandoned.complete(null);
             }
+        });
+        return outcome;
+    }
+
+    /**
+     * Trabajo aceptado por MRL-AMIS, con la réplica dueña
+     */
+    private record AcceptedJob(String jobId, MrlAmisBackend backend, long acceptedNanos) {
+    }
+
+    /**
+     * Cancela un trabajo en MRL-AMIS y contabiliza el tiempo de CPU que se ahorra: la duración
+     * predicha menos lo que ya lleva desde que se aceptó (estimación conservadora, porque
+     * incluye el tiempo en cola de Python). La llamada usa lo que quede del presupuesto del
+     * trabajo, con un mínimo de CANCEL_GRACE_MILLIS porque suele cancelarse al agotarse.
+     */
+    private void cancelJob(AcceptedJob job, double predictedSeconds, String reason, RequestBudget budget) {
+        long cancelMillis = Math.min(TimeUnit.SECONDS.toMillis(grpcConfig.getConnectionTimeoutSeconds()),
+                Math.max(CANCEL_GRACE_MILLIS, budget.remaining(TimeUnit.MILLISECONDS)));
+        RouteOptimization.CancelJobRequest cancelRequest = 
+            RouteOptimization.CancelJobRequest.newBuilder()
+                .setJobId(job.jobId())
+                .build();
+        
+        GrpcFutures.toCompletableFuture(
+                job.backend().getFutureStub().withDeadlineAfter(cancelMillis, TimeUnit.MILLISECONDS)
+                   .cancelJob(cancelRequest))
+            .whenComplete((cancelResponse, error) -> {
+                if (error != null) {
+                    logger.warn("⚠️  CancelJob for job {} on {} failed: {}", job.jobId(), job.backend().getName(),
+                               Status.fromThrowable(error).getDescription());
+                    return;
+                }
+                if (!cancelResponse.getSuccess()) {
+                    logger.info("Job {} was not cancelled: {}", job.jobId(), cancelResponse.getMessage());
+                    return;
+                }
+                double elapsedSeconds = (System.nanoTime() - job.acceptedNanos()) / (double) TimeUnit.SECONDS.toNanos(1);
+                double savedMinutes = Math.max(0, predictedSeconds - elapsedSeconds) / 60.0;
+                savedCpuMinutesCounter.increment(savedMinutes);
+                Counter.builder("route.processing.cancellations")
+                        .tag("reason", reason)
+                        .description("Trabajos MRL-AMIS cancelados")
+                        .register(meterRegistry)
+                        .increment();
+                logger.info("🛑 Cancelled job {} ({}), ~{} CPU minutes saved", job.jobId(), reason, 
+                           String.format("%.1f", savedMinutes));
+            });
+    }
+
+    /**
+     * HealthCheck barato usado por el circuit breaker en semiabierto. No pertenece a ninguna
+     * petición, así que no hay presupuesto que respetar: connection-timeout-seconds. Sin
+     * cobertura: un sondeo lento ya es la respuesta que buscamos.
+     */
+    private CompletableFuture<Boolean> healthProbe(MrlAmisBackend backend) {
+        RouteOptimization.HealthRequest healthRequest = 
+            RouteOptimization.HealthRequest.newBuilder()
+                .setServiceName("route-processing-service")
+                .build();
+        return GrpcFutures.toCompletableFuture(
+                backend.getFutureStub().withDeadlineAfter(grpcConfig.getConnectionTimeoutSeconds(), TimeUnit.SECONDS)
+                       .healthCheck(healthRequest))
+            .thenApply(RouteOptimization.HealthResponse::getIsHealthy);
+    }
+
+    /**
+     * Test gRPC connection with health check. Usa el stub futuro: ningún hilo espera la respuesta.
+     */
+    private void testConnection(MrlAmisBackend backend) {
+        RouteOptimization.HealthRequest healthRequest = 
+            RouteOptimization.HealthRequest.newBuilder()
+                .setServiceName("route-processing-service")
+                .build();
+        
+        GrpcFutures.toCompletableFuture(
+                backend.getFutureStub().withDeadlineAfter(grpcConfig.getConnectionTimeoutSeconds(), TimeUnit.SECONDS)
+                       .healthCheck(healthRequest))
+            .whenComplete((healthResponse, error) -> {
+                if (error != null) {
+                    logger.warn("Initial gRPC connection test to {} failed: {}", backend.getName(), 
+                               Status.fromThrowable(error).getDescription());
+                    return;
+                }
+                logger.info("gRPC connection to Python MRL-AMIS service {} established successfully", backend.getName());
+                logger.info("Health check response: healthy={}, status={}, version={}", 
+                           healthResponse.getIsHealthy(), healthResponse.getStatus(), healthResponse.getVersion());
+            });
+    }
+
+    /**
+     * Call gRPC service with retry logic. Los reintentos se programan en el scheduler
+     * en lugar de dormir el hilo que llama, solo para fallos seguros (RETRYABLE_SUBMIT_CODES),
+     * con decorrelated jitter y mientras quede presupuesto de reintentos.
+     */
+    private CompletableFuture<RouteOptimization.RouteOptimizationResponse> callWithRetry(
+            RouteOptimization.RouteOptimizationRequest request, RequestBudget budget) {
+        
+        CompletableFuture<RouteOptimization.RouteOptimizationResponse> result = new CompletableFuture<>();
+        attemptOptimizeRoute(request, budget, 1, 0, result);
+        return result;
+    }
+
+    private void attemptOptimizeRoute(RouteOptimization.RouteOptimizationRequest request, RequestBudget budget, 
+            int attempt, long previousBackoffMillis, 
+            CompletableFuture<RouteOptimization.RouteOptimizationResponse> result) {
+        
+        if (result.isDone()) {
+            // Cancelado mientras esperaba el reintento
+            return;
         }
+        if (budget.isExpired()) {
+            result.completeExceptionally(deadlineExhausted("submitting the route"));
+            return;
+        }
+        logger.info("gRPC call attempt {} of {}", attempt, grpcConfig.getMaxRetryAttempts());
         
-        throw new RuntimeException("All gRPC retry attempts failed", lastException);
+        // Cada intento sale con lo que quede del presupuesto (como mucho request-timeout-seconds),
+        // solo o agrupado con otros envíos cercanos
+        Deadline deadline = budget.current();
+        CompletableFuture<OptimizeRouteBatcher.Submitted> call = submitBatcher != null
+                ? submitBatcher.submit(request, deadline)
+                : submitDirect(request, deadline);
+        call.whenComplete((submitted, error) -> {
+                if (error == null) {
+                    RouteOptimization.RouteOptimizationResponse response = submitted.response();
+                    concurrencyLimiter.onSubmitSuccess(submitted.latencyNanos(), 
+                            response.getQueuePosition(), response.getEstimatedWaitTimeMinutes());
+                    if (attempt == 1) {
+                        // Solo los envíos que salen a la primera ganan presupuesto de reintentos
+                        retryBudget.onFirstAttemptSuccess();
+                    }
+                    // Las llamadas posteriores de este trabajo van a la misma réplica
+                    backendPool.bind(response.getJobId(), submitted.backend());
+                    if (!result.complete(response) && !JobStatus.fromGrpcStatus(response.getStatus()).isFinal()) {
+                        // Quien lo pidió canceló mientras se enviaba: el trabajo ya no interesa a nadie
+                        cancelJob(new AcceptedJob(response.getJobId(), submitted.backend(), System.nanoTime()),
+                                runtimePredictor.predictSeconds(request), "abandoned", budget);
+                        backendPool.release(response.getJobId());
+                    }
+                    return;
+                }
+                
+                Status status = Status.fromThrowable(error);
+                concurrencyLimiter.onSubmitFailure(status);
+                logger.warn("gRPC call attempt {} failed: {}", attempt, status.getDescription());
+                
+                if (!RETRYABLE_SUBMIT_CODES.contains(status.getCode())) {
+                    // Python pudo haber aceptado el trabajo: reintentar lo duplicaría
+                    result.completeExceptionally(error);
+                    return;
+                }
+                if (backendPool.allCircuitsOpen()) {
+                    // Ninguna réplica acepta llamadas: fallar ya en vez de esperar los reintentos
+                    result.completeExceptionally(new RuntimeException("All MRL-AMIS backends are unavailable", error));
+                    return;
+                }
+                if (attempt >= grpcConfig.getMaxRetryAttempts()) {
+                    result.completeExceptionally(new RuntimeException("All gRPC retry attempts failed", error));
+                    return;
+                }
+                
+                long waitTime = retryBudget.nextBackoffMillis(previousBackoffMillis);
+                if (budget.remaining(TimeUnit.MILLISECONDS) <= waitTime) {
+                    // El reintento ya no cabe en el presupuesto
+                    result.completeExceptionally(deadlineExhausted("retrying the submission"));
+                } else if (!retryBudget.tryAcquireRetry()) {
+                    // Demasiados reintentos frente a las llamadas que salen bien: no amplificar la caída
+                    logger.warn("Retry budget exhausted, not retrying attempt {}", attempt);
+                    result.completeExceptionally(new RuntimeException("gRPC retry budget exhausted", error));
+                } else {
+                    logger.info("Waiting {}ms before retry", waitTime);
+                    scheduler.schedule(() -> attemptOptimizeRoute(request, budget, attempt + 1, waitTime, result), 
+                                       waitTime, TimeUnit.MILLISECONDS);
+                }
+            });
+    }
+
+    /**
+     * Envío individual (OptimizeRoute) a la réplica menos cargada en ese momento
+     */
+    private CompletableFuture<OptimizeRouteBatcher.Submitted> submitDirect(
+            RouteOptimization.RouteOptimizationRequest request, Deadline deadline) {
+        MrlAmisBackend backend = backendPool.selectForSubmit();
+        long startNanos = System.nanoTime();
+        return GrpcFutures.toCompletableFuture(
+                backend.getFutureStub().withDeadline(callDeadline(deadline, grpcConfig.getRequestTimeoutSeconds()))
+                       .optimizeRoute(request))
+            .thenApply(response -> new OptimizeRouteBatcher.Submitted(backend, response, System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Deadline de una llamada: el tope por RPC, sin pasar del presupuesto de la petición.
+     * gRPC lo envía al servidor (grpc-timeout), así Python puede dejar de trabajar a tiempo.
+     */
+    private static Deadline callDeadline(Deadline budget, long capSeconds) {
+        return Deadline.after(capSeconds, TimeUnit.SECONDS).minimum(budget);
+    }
+
+    private static StatusRuntimeException deadlineExhausted(String stage) {
+        return Status.DEADLINE_EXCEEDED
+                .withDescription("Request deadline exhausted before " + stage)
+                .asRuntimeException();
+    }
+
+    /**
+     * Presupuesto total de una petición: el que pide el cliente (acotado a
+     * max-request-deadline-seconds) o request-deadline-seconds
+     */
+    private Deadline requestDeadline(Duration requested) {
+        long maxMillis = TimeUnit.SECONDS.toMillis(grpcConfig.getMaxRequestDeadlineSeconds());
+        long millis = requested != null && !requested.isNegative() && !requested.isZero()
+                ? Math.min(requested.toMillis(), maxMillis)
+                : TimeUnit.SECONDS.toMillis(grpcConfig.getRequestDeadlineSeconds());
+        return Deadline.after(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Huella canónica de la petición: la misma que usan la caché y la coalescencia
+     */
+    String fingerprintOf(RouteProcessingRequest request) {
+        return RouteRequestFingerprint.of(convertToGrpcRequest(request));
     }
 
     /**
@@ -388,11 +895,6 @@ public class GrpcPythonMrlAmisService {
         return builder.build();
     }
 
-    /**
-     * Convert gRPC response to Java result format
-     */
-// ...existing code...
-
     /**
      * Factory para convertir respuestas gRPC a resultados Java
      */
@@ -488,6 +990,23 @@ public class GrpcPythonMrlAmisService {
             return result;
         }
 
+        /**
+         * Copia del resultado para otra petición con la misma ruta (p. ej. un duplicado
+         * dentro de un lote), con su propio requestId
+         */
+        public RouteOptimizationResult withRequestId(String requestId) {
+            RouteOptimizationResult copy = new RouteOptimizationResult();
+            copy.setRequestId(requestId);
+            copy.setOptimizedRouteId(optimizedRouteId);
+            copy.setOptimizedSequence(optimizedSequence != null ? new ArrayList<>(optimizedSequence) : null);
+            copy.setTotalDistanceKm(totalDistanceKm);
+            copy.setTotalTimeMinutes(totalTimeMinutes);
+            copy.setAlgorithm(algorithm);
+            copy.setOptimizationScore(optimizationScore);
+            copy.setProcessedAt(processedAt);
+            return copy;
+        }
+
         // Getters and Setters
         public String getRequestId() { return requestId; }
         public void setRequestId(String requestId) { this.requestId = requestId; }
@@ -544,6 +1063,7 @@ public class GrpcPythonMrlAmisService {
     COMPLETED("Completado exitosamente", true, false),
     FAILED("Falló", true, true),
     TIMEOUT("Tiempo agotado", true, true),
+    CANCELLED("Cancelado", true, true),
     UNKNOWN("Estado desconocido", false, false);
 
     private final String description;
@@ -589,6 +1109,8 @@ public class GrpcPythonMrlAmisService {
                 return FAILED;
             case "TIMEOUT":
                 return TIMEOUT;
+            case "CANCELLED", "CANCELED":
+                return CANCELLED;
             default:
                 return UNKNOWN;
         }
@@ -596,122 +1118,239 @@ public class GrpcPythonMrlAmisService {
 
 }
 
-// ...existing code...
+    /**
+     * Espera a que el trabajo termine y obtiene su resultado. Usa WatchJob (server-streaming)
+     * cuando el servidor lo soporta y si no delega el polling en el {@link JobTracker}.
+     */
+    private CompletableFuture<PollingResult> awaitJobCompletion(RouteOptimization.RouteOptimizationResponse initialResponse,
+            RequestBudget budget, Consumer<RouteOptimization.JobStatusResponse> progressListener) {
+        String jobId = initialResponse.getJobId();
+        MrlAmisBackend backend = backendPool.backendFor(jobId);
+        CompletableFuture<PollingResult> finalStatus;
+        
+        if (grpcConfig.isWatchJobEnabled() && backend.isWatchJobSupported()) {
+            long watchStart = System.nanoTime();
+            finalStatus = watchJob(backend, jobId, budget, progressListener).exceptionallyCompose(error -> {
+                Status status = Status.fromThrowable(error);
+                if (status.getCode() == Status.Code.UNIMPLEMENTED) {
+                    backend.markWatchJobUnsupported();
+                    logger.warn("WatchJob is not implemented by {}, using polling from now on", backend.getName());
+                } else if (status.getCode() == Status.Code.DEADLINE_EXCEEDED && !budget.isExpired()
+                        && System.nanoTime() - watchStart < TimeUnit.SECONDS.toNanos(maxWatchSeconds())) {
+                    // El stream salió con el presupuesto de entonces y otra petición lo alargó después
+                    logger.info("WatchJob for job {} ended with budget left, continuing with polling", jobId);
+                } else if (status.getCode() == Status.Code.DEADLINE_EXCEEDED) {
+                    logger.error("⏱️  WatchJob deadline exceeded for job {}", jobId);
+                    return CompletableFuture.completedFuture(new PollingResult.Builder()
+                            .status(JobStatus.TIMEOUT)
+                            .jobId(jobId)
+                            .message("Timeout while watching job: " + status.getDescription())
+                            .build());
+                } else {
+                    logger.warn("⚠️  WatchJob stream for job {} failed ({}), falling back to polling", 
+                               jobId, status);
+                }
+                return jobTracker.track(jobId, initialResponse, budget::current, progressListener);
+            });
+        } else {
+            finalStatus = jobTracker.track(jobId, initialResponse, budget::current, progressListener);
+        }
+        
+        return finalStatus.thenCompose(pollingResult -> pollingResult.isCompleted()
+                ? fetchJobResult(backend, pollingResult, budget.current())
+                : CompletableFuture.completedFuture(pollingResult))
+            .whenComplete((pollingResult, error) -> backendPool.release(jobId));
+    }
 
     /**
-     * Hace polling del estado del trabajo hasta que se complete
+     * Se suscribe a WatchJob. El futuro se completa en cuanto el servidor empuja un estado
+     * final; ningún hilo queda bloqueado mientras el trabajo espera.
      */
-    private PollingResult pollJobUntilComplete(String jobId, String routeId) {
-        // USE CONFIGURATION VALUES instead of hardcoded
-        int maxAttempts = grpcConfig.getPollingMaxAttempts(); // From config: 120 attempts
-        int delaySeconds = grpcConfig.getPollingIntervalSeconds(); // From config: 10 seconds
-        int totalMaxSeconds = maxAttempts * delaySeconds; // 120 * 10 = 1200 seconds (20 minutes)
+    private CompletableFuture<PollingResult> watchJob(MrlAmisBackend backend, String jobId, RequestBudget budget,
+            Consumer<RouteOptimization.JobStatusResponse> progressListener) {
+        CompletableFuture<PollingResult> future = new CompletableFuture<>();
         
-        logger.info("╔════════════════════════════════════════════════════════════════");
-        logger.info("║ STARTING POLLING FOR JOB: {}", jobId);
-        logger.info("║ Max attempts: {}, Delay: {}s, Total max time: {}s ({}min)", 
-                   maxAttempts, delaySeconds, totalMaxSeconds, totalMaxSeconds/60);
-        logger.info("╚════════════════════════════════════════════════════════════════");
+        RouteOptimization.JobStatusRequest watchRequest = 
+            RouteOptimization.JobStatusRequest.newBuilder()
+                .setJobId(jobId)
+                .build();
         
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                logger.info("🔄 Polling attempt {}/{} for job {}", attempt, maxAttempts, jobId);
-                
-                // CORRECCIÓN: Usar el método correcto del proto
-                RouteOptimization.JobStatusRequest statusRequest = 
-                    RouteOptimization.JobStatusRequest.newBuilder()
-                        .setJobId(jobId)
-                        .build();
-                
-                // CORRECCIÓN: Llamar al método getJobStatus con fresh deadline
-                RouteOptimization.JobStatusResponse statusResponse = 
-                    blockingStub.withDeadlineAfter(grpcConfig.getConnectionTimeoutSeconds(), TimeUnit.SECONDS)
-                               .getJobStatus(statusRequest);
-                
-                logJobStatusResponse(statusResponse, attempt);
-                
-                // Crear resultado de polling
-                PollingResult pollingResult = new PollingResult.Builder()
-                        .status(JobStatus.fromGrpcStatus(statusResponse.getStatus()))
-                        .jobId(jobId)
-                        .message(statusResponse.getMessage())
-                        .progress(statusResponse.getProgress())
-                        .attempts(attempt)
-                        .build();
-                
-                logger.info("📊 {}", pollingResult);
-                
-                // Si terminó (éxito o error)
-                if (pollingResult.getStatus().isFinal()) {
-                    if (pollingResult.isCompleted()) {
-                        logger.info("✅ Job {} completed successfully after {} attempts", 
-                                   jobId, attempt);
-                        
-                        // IMPORTANTE: Obtener el resultado completo con fresh deadline
-                        RouteOptimization.JobResultRequest resultRequest = 
-                            RouteOptimization.JobResultRequest.newBuilder()
-                                .setJobId(jobId)
-                                .build();
-                        
-                        RouteOptimization.RouteOptimizationResponse fullResponse = 
-                            blockingStub.withDeadlineAfter(grpcConfig.getRequestTimeoutSeconds(), TimeUnit.SECONDS)
-                                       .getJobResult(resultRequest);
-                        
-                        // Actualizar el pollingResult con la respuesta completa
-                        pollingResult = new PollingResult.Builder()
-                                .status(JobStatus.COMPLETED)
+        backend.getAsyncStub().withDeadline(callDeadline(budget.current(), maxWatchSeconds())).watchJob(watchRequest,
+            new ClientResponseObserver<RouteOptimization.JobStatusRequest, RouteOptimization.JobStatusResponse>() {
+                private ClientCallStreamObserver<RouteOptimization.JobStatusRequest> requestStream;
+                private int updates;
+
+                @Override
+                public void beforeStart(ClientCallStreamObserver<RouteOptimization.JobStatusRequest> requestStream) {
+                    this.requestStream = requestStream;
+                }
+
+                @Override
+                public void onNext(RouteOptimization.JobStatusResponse statusResponse) {
+                    updates++;
+                    logJobStatusResponse(statusResponse, updates);
+                    progressListener.accept(statusResponse);
+                    
+                    JobStatus status = JobStatus.fromGrpcStatus(statusResponse.getStatus());
+                    if (status.isFinal() && !future.isDone()) {
+                        jobTracker.recordDetectionLag(statusResponse);
+                        future.complete(new PollingResult.Builder()
+                                .status(status)
                                 .jobId(jobId)
-                                .message(statusResponse.getMessage())
-                                .progress(100.0f)
-                                .grpcResponse(fullResponse)
-                                .attempts(attempt)
-                                .build();
-                        
-                    } else {
-                        logger.error("❌ Job {} failed with status: {}", 
-                                    jobId, pollingResult.getStatus());
+                                .message(status.isError() && !statusResponse.getErrorMessage().isEmpty()
+                                        ? statusResponse.getErrorMessage() : statusResponse.getMessage())
+                                .progress(statusResponse.getProgress())
+                                .attempts(updates)
+                                .build());
+                        // Ya no necesitamos más actualizaciones de este trabajo
+                        requestStream.cancel("Job reached final status " + status, null);
                     }
-                    return pollingResult;
                 }
-                
-                // Esperar antes del siguiente intento
-                if (attempt < maxAttempts) {
-                    logger.info("⏸️  Waiting {}s before next polling attempt...", delaySeconds);
-                    Thread.sleep(delaySeconds * 1000);
+
+                @Override
+                public void onError(Throwable t) {
+                    future.completeExceptionally(t);
                 }
-                
-            } catch (StatusRuntimeException e) {
-                logger.warn("⚠️  gRPC error during polling attempt {}: {}", 
-                           attempt, e.getStatus().getDescription());
-                
-                if (attempt == maxAttempts) {
-                    return new PollingResult.Builder()
-                            .status(JobStatus.FAILED)
-                            .jobId(jobId)
-                            .message("Polling failed: " + e.getStatus().getDescription())
-                            .attempts(attempt)
-                            .build();
+
+                @Override
+                public void onCompleted() {
+                    future.completeExceptionally(Status.UNAVAILABLE
+                            .withDescription("WatchJob stream closed before job " + jobId + " reached a final status")
+                            .asRuntimeException());
                 }
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("🛑 Polling interrupted");
-                return new PollingResult.Builder()
-                        .status(JobStatus.FAILED)
-                        .jobId(jobId)
-                        .message("Polling interrupted")
-                        .attempts(attempt)
-                        .build();
-            }
+            });
+        
+        return future;
+    }
+
+    /**
+     * Duración máxima de un stream WatchJob: la misma espera total que el polling
+     */
+    private long maxWatchSeconds() {
+        return (long) grpcConfig.getPollingMaxAttempts() * grpcConfig.getPollingIntervalSeconds();
+    }
+
+    /**
+     * Obtiene el resultado completo de un trabajo que terminó correctamente
+     */
+    private CompletableFuture<PollingResult> fetchJobResult(MrlAmisBackend backend, PollingResult completed,
+            Deadline deadline) {
+        if (deadline.isExpired()) {
+            return CompletableFuture.failedFuture(deadlineExhausted("fetching the result of job " + completed.getJobId()));
+        }
+        RouteOptimization.JobResultRequest resultRequest = 
+            RouteOptimization.JobResultRequest.newBuilder()
+                .setJobId(completed.getJobId())
+                .build();
+        
+        // El trabajo ya terminó: si la consulta se atasca, una segunda de cobertura trae el resultado
+        Deadline callDeadline = callDeadline(deadline, grpcConfig.getRequestTimeoutSeconds());
+        return requestHedger.call("GetJobResult", () ->
+                backend.getFutureStub().withDeadline(callDeadline)
+                       .getJobResult(resultRequest))
+            .thenApply(fullResponse -> new PollingResult.Builder()
+                    .status(JobStatus.COMPLETED)
+                    .jobId(completed.getJobId())
+                    .message(completed.getMessage())
+                    .progress(100.0f)
+                    .grpcResponse(fullResponse)
+                    .attempts(completed.getAttempts())
+                    .build());
+    }
+
+    /**
+     * Batcher de consultas de estado usado por el {@link JobTracker}: todas las consultas que
+     * vencen en un tick viajan en una sola llamada GetJobStatuses por réplica dueña. Si una
+     * réplica no implementa el RPC por lotes se vuelve a una llamada GetJobStatus por trabajo.
+     */
+    private CompletableFuture<List<RouteOptimization.JobStatusResponse>> getJobStatusesAsync(List<String> jobIds,
+            Deadline budget) {
+        // Como mucho connection-timeout-seconds, sin pasar del presupuesto más largo del lote
+        Deadline deadline = callDeadline(budget, grpcConfig.getConnectionTimeoutSeconds());
+        List<CompletableFuture<List<RouteOptimization.JobStatusResponse>>> calls = new ArrayList<>();
+        backendPool.groupByOwner(jobIds).forEach((backend, backendJobIds) ->
+            calls.add(getJobStatusesAsync(backend, backendJobIds, deadline)
+                // Un fallo de una réplica no debe afectar a los trabajos de las demás
+                .exceptionally(error -> {
+                    logger.warn("⚠️  Batch status check on {} failed: {}", backend.getName(), 
+                               Status.fromThrowable(error).getDescription());
+                    return List.of();
+                })));
+        
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> {
+                List<RouteOptimization.JobStatusResponse> statuses = new ArrayList<>(jobIds.size());
+                calls.forEach(call -> statuses.addAll(call.join()));
+                return statuses;
+            });
+    }
+
+    private CompletableFuture<List<RouteOptimization.JobStatusResponse>> getJobStatusesAsync(
+            MrlAmisBackend backend, List<String> jobIds, Deadline deadline) {
+        if (!backend.isBatchStatusSupported()) {
+            return getJobStatusesOneByOne(backend, jobIds, deadline);
         }
         
-        logger.error("⏱️  Polling timeout after {} seconds for job {}", totalMaxSeconds, jobId);
-        return new PollingResult.Builder()
-                .status(JobStatus.TIMEOUT)
-                .jobId(jobId)
-                .message("Timeout after " + totalMaxSeconds + " seconds")
-                .attempts(maxAttempts)
+        RouteOptimization.JobStatusesRequest statusesRequest = 
+            RouteOptimization.JobStatusesRequest.newBuilder()
+                .addAllJobIds(jobIds)
                 .build();
+        
+        return requestHedger.call("GetJobStatuses", () ->
+                backend.getFutureStub().withDeadline(deadline)
+                       .getJobStatuses(statusesRequest))
+            .<List<RouteOptimization.JobStatusResponse>>thenApply(
+                RouteOptimization.JobStatusesResponse::getStatusesList)
+            .exceptionallyCompose(error -> {
+                if (Status.fromThrowable(error).getCode() == Status.Code.UNIMPLEMENTED) {
+                    backend.markBatchStatusUnsupported();
+                    logger.warn("GetJobStatuses is not implemented by {}, using GetJobStatus per job", backend.getName());
+                    return getJobStatusesOneByOne(backend, jobIds, deadline);
+                }
+                return CompletableFuture.failedFuture(error);
+            })
+            .whenComplete((statuses, error) -> {
+                if (statuses != null) {
+                    logger.debug("Batch status check on {}: {} requested, {} returned", 
+                                backend.getName(), jobIds.size(), statuses.size());
+                    statuses.forEach(statusResponse -> logJobStatusResponse(statusResponse, 0));
+                }
+            });
+    }
+
+    private CompletableFuture<List<RouteOptimization.JobStatusResponse>> getJobStatusesOneByOne(
+            MrlAmisBackend backend, List<String> jobIds, Deadline deadline) {
+        List<CompletableFuture<RouteOptimization.JobStatusResponse>> calls = new ArrayList<>(jobIds.size());
+        for (String jobId : jobIds) {
+            RouteOptimization.JobStatusRequest statusRequest = 
+                RouteOptimization.JobStatusRequest.newBuilder()
+                    .setJobId(jobId)
+                    .build();
+            
+            calls.add(requestHedger.call("GetJobStatus", () ->
+                    backend.getFutureStub().withDeadline(deadline)
+                           .getJobStatus(statusRequest))
+                // El tracker empareja por job_id: asegurarlo aunque el servidor no lo rellene
+                .thenApply(statusResponse -> statusResponse.getJobId().isEmpty()
+                        ? statusResponse.toBuilder().setJobId(jobId).build() : statusResponse)
+                .exceptionally(error -> {
+                    logger.warn("⚠️  GetJobStatus failed for job {}: {}", jobId, Status.fromThrowable(error).getDescription());
+                    return null;
+                }));
+        }
+        
+        // Los trabajos cuya consulta falló se omiten y el tracker los trata como error
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> {
+                List<RouteOptimization.JobStatusResponse> statuses = new ArrayList<>(calls.size());
+                for (CompletableFuture<RouteOptimization.JobStatusResponse> call : calls) {
+                    RouteOptimization.JobStatusResponse statusResponse = call.join();
+                    if (statusResponse != null) {
+                        statuses.add(statusResponse);
+                    }
+                }
+                return statuses;
+            });
     }
 
     // Métodos de logging auxiliares
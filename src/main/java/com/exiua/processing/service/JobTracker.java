@@ -0,0 +1,347 @@
+package com.exiua.processing.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+import com.exiua.processing.config.PollingStrategy;
+import com.exiua.processing.service.GrpcPythonMrlAmisService.JobStatus;
+import com.exiua.processing.service.GrpcPythonMrlAmisService.PollingResult;
+
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import route.optimization.RouteOptimization;
+
+/**
+ * Seguimiento centralizado de los trabajos MRL-AMIS en curso.
+ * Un único tick periódico revisa qué trabajos toca consultar y agrupa todas esas consultas
+ * en lotes (GetJobStatuses), en lugar de mantener un bucle de polling por cada petición.
+ * Cuándo vuelve a consultarse cada trabajo lo decide el {@link PollingStrategy} configurado.
+ */
+@Component
+public class JobTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobTracker.class);
+
+    /**
+     * Origen de los estados de trabajo (normalmente el cliente gRPC). Recibe un lote de
+     * job IDs y devuelve los estados que conoce; los que falten se tratan como error.
+     * {@code deadline} es el presupuesto más largo entre los trabajos del lote.
+     */
+    @FunctionalInterface
+    public interface StatusSource {
+        CompletableFuture<List<RouteOptimization.JobStatusResponse>> getJobStatuses(List<String> jobIds, Deadline deadline);
+    }
+
+    private final GrpcPythonMrlAmisConfigurationProperties grpcConfig;
+    private final ScheduledExecutorService scheduler;
+    private final PollingStrategy pollingStrategy;
+    private final Map<String, TrackedJob> activeJobs = new ConcurrentHashMap<>();
+
+    private final Timer tickLagTimer;
+    private final Counter statusChecksCounter;
+    private final Counter statusBatchesCounter;
+    private final Timer detectionLagTimer;
+
+    private volatile StatusSource statusSource;
+    private ScheduledFuture<?> tickTask;
+    private long nextTickNanos;
+
+    public JobTracker(
+            GrpcPythonMrlAmisConfigurationProperties grpcConfig,
+            @Qualifier("routeProcessingScheduler") ScheduledExecutorService scheduler,
+            PollingStrategy pollingStrategy,
+            MeterRegistry meterRegistry) {
+        this.grpcConfig = grpcConfig;
+        this.scheduler = scheduler;
+        this.pollingStrategy = pollingStrategy;
+
+        Gauge.builder("route.processing.tracker.active.jobs", activeJobs, Map::size)
+                .description("Trabajos MRL-AMIS en seguimiento")
+                .register(meterRegistry);
+        this.tickLagTimer = Timer.builder("route.processing.tracker.tick.lag")
+                .description("Retraso del tick del tracker respecto a su hora programada")
+                .register(meterRegistry);
+        this.statusChecksCounter = Counter.builder("route.processing.tracker.status.checks")
+                .description("Consultas de estado lanzadas por el tracker")
+                .register(meterRegistry);
+        this.statusBatchesCounter = Counter.builder("route.processing.tracker.status.batches")
+                .description("Llamadas por lotes de estado lanzadas por el tracker")
+                .register(meterRegistry);
+        this.detectionLagTimer = Timer.builder("route.processing.job.detection.lag")
+                .description("Tiempo entre que el trabajo termina en Python y que lo detectamos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Arranca el tick periódico usando la fuente de estados indicada
+     */
+    public synchronized void start(StatusSource source) {
+        this.statusSource = source;
+        if (tickTask != null) {
+            return;
+        }
+        long tickMillis = grpcConfig.getTrackerTickMillis();
+        nextTickNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        tickTask = scheduler.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        logger.info("Job tracker started (tick every {}ms)", tickMillis);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (tickTask != null) {
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+    }
+
+    /**
+     * Registra un trabajo para seguimiento. El futuro se completa cuando el trabajo llega
+     * a un estado final (o se agota el tiempo máximo de polling o el presupuesto de la petición;
+     * pasado ese momento no se vuelve a consultar).
+     *
+     * @param initialResponse respuesta de OptimizeRoute, usada como primer estado conocido
+     * @param budget          presupuesto del trabajo; se lee en cada tick porque puede alargarse
+     *                        si se enganchan peticiones con más margen
+     * @param statusListener   recibe cada estado consultado del trabajo
+     */
+    public CompletableFuture<PollingResult> track(String jobId, RouteOptimization.RouteOptimizationResponse initialResponse,
+            Supplier<Deadline> budget, Consumer<RouteOptimization.JobStatusResponse> statusListener) {
+        TrackedJob job = activeJobs.computeIfAbsent(jobId, id -> {
+            RouteOptimization.JobStatusResponse initialStatus = initialStatus(initialResponse);
+            long now = System.nanoTime();
+            TrackedJob tracked = new TrackedJob(id, initialStatus, now, now + maxWaitNanos(), budget, statusListener);
+            tracked.nextPollNanos = now + nextPollDelayNanos(initialStatus);
+            tracked.future.whenComplete((result, error) -> activeJobs.remove(id, tracked));
+            logger.info("Tracking job {} ({} jobs in flight)", id, activeJobs.size() + 1);
+            return tracked;
+        });
+        return job.future;
+    }
+
+    /**
+     * Estado de un trabajo según la respuesta de OptimizeRoute que lo creó
+     */
+    static RouteOptimization.JobStatusResponse initialStatus(RouteOptimization.RouteOptimizationResponse initialResponse) {
+        return RouteOptimization.JobStatusResponse.newBuilder()
+                .setJobId(initialResponse.getJobId())
+                .setRouteId(initialResponse.getRouteId())
+                .setStatus(initialResponse.getStatus())
+                .setMessage(initialResponse.getMessage())
+                .setQueuePosition(initialResponse.getQueuePosition())
+                .build();
+    }
+
+    /**
+     * Registra el retraso de detección de un trabajo terminado: cuánto tiempo pasó desde
+     * completed_at hasta que nos enteramos.
+     */
+    public void recordDetectionLag(RouteOptimization.JobStatusResponse finalStatus) {
+        Instant completedAt = PollingStrategy.parseTimestamp(finalStatus.getCompletedAt());
+        if (completedAt != null) {
+            Duration lag = Duration.between(completedAt, Instant.now());
+            detectionLagTimer.record(lag.isNegative() ? Duration.ZERO : lag);
+        }
+    }
+
+    public int getActiveJobCount() {
+        return activeJobs.size();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        tickLagTimer.record(Math.max(0, now - nextTickNanos), TimeUnit.NANOSECONDS);
+        nextTickNanos += TimeUnit.MILLISECONDS.toNanos(grpcConfig.getTrackerTickMillis());
+
+        StatusSource source = statusSource;
+        if (source == null) {
+            return;
+        }
+
+        try {
+            int batchSize = grpcConfig.getStatusBatchSize();
+            List<TrackedJob> due = new ArrayList<>();
+            for (TrackedJob job : activeJobs.values()) {
+                if (job.isExpired(now) && !job.inFlight.get()) {
+                    // Sin tiempo para otra consulta
+                    expire(job);
+                    continue;
+                }
+                if (now >= job.nextPollNanos && job.inFlight.compareAndSet(false, true)) {
+                    due.add(job);
+                    if (due.size() == batchSize) {
+                        pollBatch(due, source);
+                        due = new ArrayList<>();
+                    }
+                }
+            }
+            if (!due.isEmpty()) {
+                pollBatch(due, source);
+            }
+        } catch (RuntimeException e) {
+            // Nunca dejar que una excepción cancele el tick periódico
+            logger.error("Unexpected error in job tracker tick", e);
+        }
+    }
+
+    private void pollBatch(List<TrackedJob> jobs, StatusSource source) {
+        List<String> jobIds = new ArrayList<>(jobs.size());
+        Deadline batchDeadline = null;
+        for (TrackedJob job : jobs) {
+            job.attempts++;
+            jobIds.add(job.jobId);
+            Deadline jobDeadline = job.budget.get();
+            batchDeadline = batchDeadline == null ? jobDeadline : RequestBudget.latest(batchDeadline, jobDeadline);
+        }
+        statusChecksCounter.increment(jobs.size());
+        statusBatchesCounter.increment();
+
+        CompletableFuture<List<RouteOptimization.JobStatusResponse>> call;
+        try {
+            call = source.getJobStatuses(jobIds, batchDeadline);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        call.whenComplete((statuses, error) -> {
+            Map<String, RouteOptimization.JobStatusResponse> byJobId = new HashMap<>();
+            if (statuses != null) {
+                for (RouteOptimization.JobStatusResponse statusResponse : statuses) {
+                    byJobId.put(statusResponse.getJobId(), statusResponse);
+                }
+            }
+            for (TrackedJob job : jobs) {
+                try {
+                    RouteOptimization.JobStatusResponse statusResponse = byJobId.get(job.jobId);
+                    if (statusResponse != null) {
+                        onStatus(job, statusResponse);
+                    } else {
+                        onPollError(job, error != null ? Status.fromThrowable(error).getDescription()
+                                : "No status returned for job");
+                    }
+                } finally {
+                    job.nextPollNanos = System.nanoTime() + nextPollDelayNanos(job.lastStatus);
+                    job.inFlight.set(false);
+                }
+            }
+        });
+    }
+
+    private void onPollError(TrackedJob job, String description) {
+        int attempt = job.attempts;
+        logger.warn("⚠️  gRPC error checking job {} (attempt {}): {}", job.jobId, attempt, description);
+        if (job.isExpired(System.nanoTime())) {
+            job.future.complete(new PollingResult.Builder()
+                    .status(JobStatus.FAILED)
+                    .jobId(job.jobId)
+                    .message("Polling failed: " + description)
+                    .attempts(attempt)
+                    .build());
+        }
+    }
+
+    private void onStatus(TrackedJob job, RouteOptimization.JobStatusResponse statusResponse) {
+        int attempt = job.attempts;
+        job.lastStatus = statusResponse;
+        try {
+            job.statusListener.accept(statusResponse);
+        } catch (RuntimeException e) {
+            logger.warn("Status listener failed for job {}", job.jobId, e);
+        }
+
+        PollingResult pollingResult = new PollingResult.Builder()
+                .status(JobStatus.fromGrpcStatus(statusResponse.getStatus()))
+                .jobId(job.jobId)
+                .message(statusResponse.getMessage())
+                .progress(statusResponse.getProgress())
+                .attempts(attempt)
+                .build();
+        logger.debug("📊 {}", pollingResult);
+
+        if (pollingResult.getStatus().isFinal()) {
+            logger.info("Job {} reached final status {} after {} checks", job.jobId, pollingResult.getStatus(), attempt);
+            recordDetectionLag(statusResponse);
+            job.future.complete(pollingResult);
+        } else if (job.isExpired(System.nanoTime())) {
+            expire(job);
+        }
+    }
+
+    private void expire(TrackedJob job) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - job.trackedSinceNanos);
+        logger.error("⏱️  Polling timeout after {} seconds for job {}", waitedSeconds, job.jobId);
+        job.future.complete(new PollingResult.Builder()
+                .status(JobStatus.TIMEOUT)
+                .jobId(job.jobId)
+                .message("Timeout after " + waitedSeconds + " seconds")
+                .attempts(job.attempts)
+                .build());
+    }
+
+    private long nextPollDelayNanos(RouteOptimization.JobStatusResponse lastStatus) {
+        return pollingStrategy.nextPollDelay(lastStatus, Instant.now()).toNanos();
+    }
+
+    /**
+     * Tiempo máximo de espera de un trabajo (polling-max-attempts × polling-interval-seconds)
+     */
+    private long maxWaitNanos() {
+        return TimeUnit.SECONDS.toNanos((long) grpcConfig.getPollingMaxAttempts() * grpcConfig.getPollingIntervalSeconds());
+    }
+
+    /**
+     * Estado interno de un trabajo en seguimiento
+     */
+    private static class TrackedJob {
+        private final String jobId;
+        private final CompletableFuture<PollingResult> future = new CompletableFuture<>();
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+        private final long trackedSinceNanos;
+        private final long maxWaitUntilNanos;
+        private final Supplier<Deadline> budget;
+        private final Consumer<RouteOptimization.JobStatusResponse> statusListener;
+        private volatile RouteOptimization.JobStatusResponse lastStatus;
+        private volatile long nextPollNanos;
+        private volatile int attempts;
+
+        private TrackedJob(String jobId, RouteOptimization.JobStatusResponse initialStatus, long trackedSinceNanos,
+                long maxWaitUntilNanos, Supplier<Deadline> budget,
+                Consumer<RouteOptimization.JobStatusResponse> statusListener) {
+            this.jobId = jobId;
+            this.lastStatus = initialStatus;
+            this.trackedSinceNanos = trackedSinceNanos;
+            this.maxWaitUntilNanos = maxWaitUntilNanos;
+            this.budget = budget;
+            this.statusListener = statusListener;
+        }
+
+        /**
+         * Sin tiempo para seguir esperando: pasó el tiempo máximo de polling o se agotó el presupuesto
+         */
+        private boolean isExpired(long now) {
+            return now >= maxWaitUntilNanos || budget.get().isExpired();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.exiua.processing.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.grpc.ManagedChannel;
+import route.optimization.RouteOptimizationServiceGrpc;
+
+/**
+ * Una réplica del servicio Python MRL-AMIS: su canal, sus stubs, su circuit breaker y la
+ * última carga observada
+ */
+public class MrlAmisBackend {
+
+    private final String name;
+    private final ManagedChannel channel;
+    private final RouteOptimizationServiceGrpc.RouteOptimizationServiceStub asyncStub;
+    private final RouteOptimizationServiceGrpc.RouteOptimizationServiceFutureStub futureStub;
+    private final BackendCircuitBreaker circuitBreaker;
+
+    // RPCs opcionales: se desactivan por réplica si responde UNIMPLEMENTED
+    private volatile boolean watchJobSupported = true;
+    private volatile boolean batchStatusSupported = true;
+    private volatile boolean batchSubmitSupported = true;
+
+    // Carga según el último sondeo GetQueueInfo
+    private volatile boolean healthy = true;
+    private volatile int queueSize;
+    private volatile int activeJobs;
+    // Trabajos enviados desde el último sondeo (aún no reflejados en queueSize)
+    private final AtomicInteger submittedSinceProbe = new AtomicInteger();
+
+    MrlAmisBackend(String name, ManagedChannel channel, BackendCircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.channel = channel;
+        this.circuitBreaker = circuitBreaker;
+        // Stubs WITHOUT deadline - we set a fresh deadline per call
+        this.asyncStub = RouteOptimizationServiceGrpc.newStub(channel);
+        this.futureStub = RouteOptimizationServiceGrpc.newFutureStub(channel);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    ManagedChannel getChannel() {
+        return channel;
+    }
+
+    RouteOptimizationServiceGrpc.RouteOptimizationServiceStub getAsyncStub() {
+        return asyncStub;
+    }
+
+    RouteOptimizationServiceGrpc.RouteOptimizationServiceFutureStub getFutureStub() {
+        return futureStub;
+    }
+
+    BackendCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Si se le pueden enviar llamadas (circuito cerrado)
+     */
+    boolean isAvailable() {
+        return circuitBreaker.allowsCalls();
+    }
+
+    boolean isWatchJobSupported() {
+        return watchJobSupported;
+    }
+
+    void markWatchJobUnsupported() {
+        this.watchJobSupported = false;
+    }
+
+    boolean isBatchStatusSupported() {
+        return batchStatusSupported;
+    }
+
+    void markBatchStatusUnsupported() {
+        this.batchStatusSupported = false;
+    }
+
+    boolean isBatchSubmitSupported() {
+        return batchSubmitSupported;
+    }
+
+    void markBatchSubmitUnsupported() {
+        this.batchSubmitSupported = false;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getActiveJobs() {
+        return activeJobs;
+    }
+
+    /**
+     * Carga usada para elegir réplica: queue_size + active_jobs + envíos aún no sondeados
+     */
+    public int getLoad() {
+        return queueSize + activeJobs + submittedSinceProbe.get();
+    }
+
+    void onProbe(int queueSize, int activeJobs) {
+        this.queueSize = queueSize;
+        this.activeJobs = activeJobs;
+        this.submittedSinceProbe.set(0);
+        this.healthy = true;
+    }
+
+    void onProbeFailure() {
+        this.healthy = false;
+    }
+
+    void onSubmitted() {
+        submittedSinceProbe.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MrlAmisBackend{%s, healthy=%s, circuit=%s, queue=%d, active=%d}",
+                name, healthy, circuitBreaker.getState(), queueSize, activeJobs);
+    }
+}
@@ -0,0 +1,144 @@
+package com.exiua.processing.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.grpc.Status;
+import route.optimization.RouteOptimization;
+
+/**
+ * Conjunto de réplicas MRL-AMIS. Los envíos nuevos van a la réplica menos cargada
+ * (queue_size + active_jobs según sondeos periódicos de GetQueueInfo) y todas las llamadas
+ * posteriores de un trabajo se quedan en la réplica dueña de su job ID.
+ */
+class MrlAmisBackendPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(MrlAmisBackendPool.class);
+
+    private final List<MrlAmisBackend> backends;
+    private final Map<String, MrlAmisBackend> jobOwners = new ConcurrentHashMap<>();
+    private final long probeTimeoutSeconds;
+    private ScheduledFuture<?> probeTask;
+
+    MrlAmisBackendPool(List<MrlAmisBackend> backends, long probeTimeoutSeconds) {
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("At least one MRL-AMIS backend is required");
+        }
+        this.backends = Collections.unmodifiableList(new ArrayList<>(backends));
+        this.probeTimeoutSeconds = probeTimeoutSeconds;
+    }
+
+    List<MrlAmisBackend> getBackends() {
+        return backends;
+    }
+
+    /**
+     * Empieza a sondear la carga de las réplicas periódicamente
+     */
+    void startProbing(ScheduledExecutorService scheduler, long intervalSeconds) {
+        probeTask = scheduler.scheduleWithFixedDelay(this::probeAll, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    void stopProbing() {
+        if (probeTask != null) {
+            probeTask.cancel(false);
+        }
+    }
+
+    /**
+     * Réplica para un envío nuevo: la sana y con circuito cerrado de menor carga; si no hay,
+     * la de circuito cerrado de menor carga, y si todas tienen el circuito abierto, la de menor
+     * carga (su llamada fallará al momento)
+     */
+    MrlAmisBackend selectForSubmit() {
+        Comparator<MrlAmisBackend> byLoad = Comparator.comparingInt(MrlAmisBackend::getLoad);
+        return backends.stream()
+                .filter(backend -> backend.isHealthy() && backend.isAvailable())
+                .min(byLoad)
+                .or(() -> backends.stream().filter(MrlAmisBackend::isAvailable).min(byLoad))
+                .orElseGet(() -> backends.stream().min(byLoad).orElseThrow());
+    }
+
+    /**
+     * Todas las réplicas tienen el circuito abierto: no tiene sentido reintentar todavía
+     */
+    boolean allCircuitsOpen() {
+        return backends.stream().noneMatch(MrlAmisBackend::isAvailable);
+    }
+
+    /**
+     * Asocia un job ID a la réplica que lo aceptó
+     */
+    void bind(String jobId, MrlAmisBackend backend) {
+        backend.onSubmitted();
+        if (jobId != null && !jobId.isEmpty()) {
+            jobOwners.put(jobId, backend);
+        }
+    }
+
+    /**
+     * Réplica dueña del trabajo. Si no se conoce (p. ej. tras reiniciar) se usa la primera.
+     */
+    MrlAmisBackend backendFor(String jobId) {
+        MrlAmisBackend owner = jobOwners.get(jobId);
+        if (owner == null) {
+            logger.warn("No owner known for job {}, using {}", jobId, backends.get(0).getName());
+            return backends.get(0);
+        }
+        return owner;
+    }
+
+    /**
+     * Agrupa job IDs por réplica dueña, conservando el orden
+     */
+    Map<MrlAmisBackend, List<String>> groupByOwner(List<String> jobIds) {
+        Map<MrlAmisBackend, List<String>> groups = new LinkedHashMap<>();
+        for (String jobId : jobIds) {
+            groups.computeIfAbsent(backendFor(jobId), backend -> new ArrayList<>()).add(jobId);
+        }
+        return groups;
+    }
+
+    void release(String jobId) {
+        if (jobId != null) {
+            jobOwners.remove(jobId);
+        }
+    }
+
+    private void probeAll() {
+        for (MrlAmisBackend backend : backends) {
+            try {
+                // Sin cobertura: el sondeo mide precisamente si el backend responde a tiempo
+                GrpcFutures.toCompletableFuture(
+                        backend.getFutureStub().withDeadlineAfter(probeTimeoutSeconds, TimeUnit.SECONDS)
+                               .getQueueInfo(RouteOptimization.QueueInfoRequest.getDefaultInstance()))
+                    .whenComplete((queueInfo, error) -> {
+                        if (error != null) {
+                            if (backend.isHealthy()) {
+                                logger.warn("Backend {} probe failed: {}", backend.getName(),
+                                           Status.fromThrowable(error).getDescription());
+                            }
+                            backend.onProbeFailure();
+                        } else {
+                            backend.onProbe(queueInfo.getQueueSize(), queueInfo.getActiveJobs());
+                            logger.debug("Probed {}", backend);
+                        }
+                    });
+            } catch (RuntimeException e) {
+                logger.warn("Could not probe backend {}", backend.getName(), e);
+                backend.onProbeFailure();
+            }
+        }
+    }
+}
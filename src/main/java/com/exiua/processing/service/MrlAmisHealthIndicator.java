@@ -0,0 +1,48 @@
+package com.exiua.processing.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estado de las réplicas MRL-AMIS en /actuator/health. Siempre UP: el HEALTHCHECK de Docker
+ * usa este endpoint y una caída de Python no debe reiniciar este servicio (los circuitos ya
+ * hacen fallar rápido las peticiones). El detalle indica si queda alguna réplica disponible
+ * e incluye, por réplica, el estado del circuito, las tasas de fallo y lentitud y la carga sondeada.
+ */
+@Component
+public class MrlAmisHealthIndicator implements HealthIndicator {
+
+    private final GrpcPythonMrlAmisService grpcService;
+
+    public MrlAmisHealthIndicator(GrpcPythonMrlAmisService grpcService) {
+        this.grpcService = grpcService;
+    }
+
+    @Override
+    public Health health() {
+        List<MrlAmisBackend> backends = grpcService.getBackends();
+        Map<String, Object> details = new LinkedHashMap<>();
+        boolean anyAvailable = false;
+        for (MrlAmisBackend backend : backends) {
+            BackendCircuitBreaker circuitBreaker = backend.getCircuitBreaker();
+            anyAvailable |= backend.isAvailable();
+
+            Map<String, Object> backendDetails = new LinkedHashMap<>();
+            backendDetails.put("circuit", circuitBreaker.getState());
+            backendDetails.put("failureRate", Math.round(circuitBreaker.getFailureRate()));
+            backendDetails.put("slowCallRate", Math.round(circuitBreaker.getSlowCallRate()));
+            backendDetails.put("probeHealthy", backend.isHealthy());
+            backendDetails.put("load", backend.getLoad());
+            details.put(backend.getName(), backendDetails);
+        }
+        return Health.up()
+                .withDetail("available", anyAvailable)
+                .withDetails(details)
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.exiua.processing.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.grpc.Deadline;
+import io.grpc.Status;
+import route.optimization.RouteOptimization;
+
+/**
+ * Micro-batcher de envíos: las optimizaciones que llegan con pocos milisegundos de diferencia
+ * se mandan juntas en una sola llamada OptimizeRoutes a la réplica menos cargada. El lote sale
+ * al llenarse (max-size) o al vencer la ventana (window-millis), lo que ocurra antes.
+ * Si la réplica no implementa el RPC por lotes se vuelve a OptimizeRoute por petición.
+ * <p>
+ * El lote sale con el presupuesto más largo de sus envíos, para que un cliente con prisa no
+ * haga fallar a los demás; el presupuesto de cada uno lo hace cumplir su propia petición, que
+ * al agotarse cancela su envío y, si ya fue aceptado, el trabajo en MRL-AMIS.
+ */
+class OptimizeRouteBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimizeRouteBatcher.class);
+
+    private final MrlAmisBackendPool backendPool;
+    private final ScheduledExecutorService scheduler;
+    private final int maxSize;
+    private final long windowMillis;
+    private final long timeoutSeconds;
+
+    private List<PendingSubmit> pending = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+
+    OptimizeRouteBatcher(MrlAmisBackendPool backendPool, ScheduledExecutorService scheduler,
+            int maxSize, long windowMillis, long timeoutSeconds) {
+        this.backendPool = backendPool;
+        this.scheduler = scheduler;
+        this.maxSize = maxSize;
+        this.windowMillis = windowMillis;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Encola un envío; el futuro se completa con la respuesta de su réplica
+     *
+     * @param deadline presupuesto restante de la petición; el lote sale con el más largo de sus envíos
+     */
+    CompletableFuture<Submitted> submit(RouteOptimization.RouteOptimizationRequest request, Deadline deadline) {
+        PendingSubmit entry = new PendingSubmit(request, deadline, new CompletableFuture<>());
+        List<PendingSubmit> full = null;
+        synchronized (this) {
+            pending.add(entry);
+            if (pending.size() >= maxSize) {
+                full = drain();
+            } else if (flushTask == null) {
+                flushTask = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return entry.result();
+    }
+
+    private void flush() {
+        List<PendingSubmit> batch;
+        synchronized (this) {
+            flushTask = null;
+            batch = drain();
+        }
+        send(batch);
+    }
+
+    private List<PendingSubmit> drain() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        List<PendingSubmit> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void send(List<PendingSubmit> pendingBatch) {
+        // Los que agotaron su presupuesto esperando la ventana ya no salen
+        List<PendingSubmit> batch = new ArrayList<>(pendingBatch.size());
+        for (PendingSubmit entry : pendingBatch) {
+            if (entry.deadline().isExpired()) {
+                entry.result().completeExceptionally(Status.DEADLINE_EXCEEDED
+                        .withDescription("Request deadline exhausted before submitting the route")
+                        .asRuntimeException());
+            } else {
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        MrlAmisBackend backend = backendPool.selectForSubmit();
+        if (batch.size() == 1 || !backend.isBatchSubmitSupported()) {
+            batch.forEach(entry -> sendOne(backend, entry));
+            return;
+        }
+
+        RouteOptimization.OptimizeRoutesRequest.Builder batchRequest = RouteOptimization.OptimizeRoutesRequest.newBuilder();
+        Deadline latest = batch.get(0).deadline();
+        for (PendingSubmit entry : batch) {
+            batchRequest.addRequests(entry.request());
+            latest = RequestBudget.latest(latest, entry.deadline());
+        }
+        Deadline batchDeadline = Deadline.after(timeoutSeconds, TimeUnit.SECONDS).minimum(latest);
+
+        long startNanos = System.nanoTime();
+        GrpcFutures.toCompletableFuture(
+                backend.getFutureStub().withDeadline(batchDeadline)
+                       .optimizeRoutes(batchRequest.build()))
+            .whenComplete((batchResponse, error) -> {
+                if (error == null) {
+                    long latencyNanos = System.nanoTime() - startNanos;
+                    logger.debug("OptimizeRoutes on {}: {} routes in one call", backend.getName(), batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (i < batchResponse.getResponsesCount()) {
+                            batch.get(i).result().complete(
+                                    new Submitted(backend, batchResponse.getResponses(i), latencyNanos));
+                        } else {
+                            batch.get(i).result().completeExceptionally(Status.INTERNAL
+                                    .withDescription("OptimizeRoutes returned " + batchResponse.getResponsesCount()
+                                            + " responses for " + batch.size() + " requests")
+                                    .asRuntimeException());
+                        }
+                    }
+                    return;
+                }
+                if (Status.fromThrowable(error).getCode() == Status.Code.UNIMPLEMENTED) {
+                    backend.markBatchSubmitUnsupported();
+                    logger.warn("OptimizeRoutes is not implemented by {}, using OptimizeRoute per route", backend.getName());
+                    batch.forEach(entry -> sendOne(backend, entry));
+                    return;
+                }
+                batch.forEach(entry -> entry.result().completeExceptionally(error));
+            });
+    }
+
+    private void sendOne(MrlAmisBackend backend, PendingSubmit entry) {
+        long startNanos = System.nanoTime();
+        GrpcFutures.toCompletableFuture(
+                backend.getFutureStub()
+                       .withDeadline(Deadline.after(timeoutSeconds, TimeUnit.SECONDS).minimum(entry.deadline()))
+                       .optimizeRoute(entry.request()))
+            .whenComplete((response, error) -> {
+                if (error != null) {
+                    entry.result().completeExceptionally(error);
+                } else {
+                    entry.result().complete(new Submitted(backend, response, System.nanoTime() - startNanos));
+                }
+            });
+    }
+
+    /**
+     * Envío aceptado: réplica que lo recibió, su respuesta y la latencia de la llamada
+     */
+    record Submitted(MrlAmisBackend backend, RouteOptimization.RouteOptimizationResponse response, long latencyNanos) {
+    }
+
+    private record PendingSubmit(RouteOptimization.RouteOptimizationRequest request, Deadline deadline,
+            CompletableFuture<Submitted> result) {
+    }
+}
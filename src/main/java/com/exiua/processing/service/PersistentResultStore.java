@@ -0,0 +1,469 @@
+package com.exiua.processing.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+import com.google.protobuf.CodedInputStream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import route.optimization.RouteOptimization;
+
+/**
+ * Segundo nivel de caché de resultados, persistente en processing.temp-data-directory.
+ * <p>
+ * Cada segmento es un fichero append-only de RouteOptimizationResponse con prefijo de
+ * longitud ({@code results-<millis>.seg}) acompañado de un índice compacto
+ * ({@code results-<millis>.idx}) con entradas de tamaño fijo: huella SHA-256 (32 bytes),
+ * offset (8 bytes) y longitud (4 bytes). Las lecturas usan ficheros mapeados en memoria,
+ * así que los resultados sobreviven reinicios y no ocupan heap. Las escrituras van a un
+ * hilo escritor propio, nunca al hilo que entrega la respuesta de gRPC. Los segmentos con
+ * más de processing.cleanup-after-hours se borran en segundo plano.
+ */
+@Component
+public class PersistentResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentResultStore.class);
+
+    private static final String SEGMENT_PREFIX = "results-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int FINGERPRINT_BYTES = 32;
+    private static final int INDEX_ENTRY_BYTES = FINGERPRINT_BYTES + Long.BYTES + Integer.BYTES;
+    // Los segmentos se mapean por tramos fijos: un tramo completo ya no cambia y no se remapea
+    private static final long MAP_CHUNK_BYTES = 64L * 1024 * 1024;
+    // Escrituras pendientes como máximo; si el disco no da abasto se descartan (es solo caché)
+    private static final int MAX_PENDING_WRITES = 1000;
+
+    private final ProcessingConfigurationProperties processingConfig;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter droppedWritesCounter;
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_PENDING_WRITES), new CustomizableThreadFactory("result-store-writer-"));
+
+    private Path directory;
+    private volatile boolean available;
+    private Segment activeSegment;
+    private ScheduledFuture<?> cleanupTask;
+
+    public PersistentResultStore(
+            ProcessingConfigurationProperties processingConfig,
+            @Qualifier("routeProcessingScheduler") ScheduledExecutorService scheduler,
+            MeterRegistry meterRegistry) {
+        this.processingConfig = processingConfig;
+        this.scheduler = scheduler;
+
+        this.hitCounter = Counter.builder("route.processing.result.store.requests")
+                .tag("result", "hit")
+                .description("Lecturas del almacén persistente de resultados")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("route.processing.result.store.requests")
+                .tag("result", "miss")
+                .description("Lecturas del almacén persistente de resultados")
+                .register(meterRegistry);
+        this.droppedWritesCounter = Counter.builder("route.processing.result.store.dropped.writes")
+                .description("Resultados no persistidos porque la cola del escritor estaba llena")
+                .register(meterRegistry);
+        Gauge.builder("route.processing.result.store.write.queue", writer, executor -> executor.getQueue().size())
+                .description("Escrituras pendientes del almacén persistente")
+                .register(meterRegistry);
+        Gauge.builder("route.processing.result.store.entries", index, Map::size)
+                .description("Resultados indexados en disco")
+                .register(meterRegistry);
+        Gauge.builder("route.processing.result.store.segments", segments, Map::size)
+                .description("Segmentos en disco")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        ProcessingConfigurationProperties.ResultStore config = processingConfig.getResultStore();
+        if (!config.isEnabled()) {
+            logger.info("Persistent result store disabled");
+            return;
+        }
+
+        directory = Paths.get(processingConfig.getTempDataDirectory(), "results");
+        try {
+            Files.createDirectories(directory);
+            loadSegments();
+            available = true;
+            logger.info("Persistent result store at {} ({} results in {} segments)",
+                       directory, index.size(), segments.size());
+        } catch (IOException e) {
+            logger.warn("Persistent result store unavailable at {}: {}", directory, e.getMessage());
+            return;
+        }
+
+        long cleanupMinutes = config.getCleanupIntervalMinutes();
+        cleanupTask = scheduler.scheduleWithFixedDelay(this::cleanup, cleanupMinutes, cleanupMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (cleanupTask != null) {
+            cleanupTask.cancel(false);
+        }
+        // Terminar las escrituras encoladas antes de cerrar los ficheros
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Persistent result store writer did not finish in time; dropping {} writes",
+                           writer.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                segment.closeQuietly();
+            }
+            available = false;
+        }
+    }
+
+    /**
+     * Respuesta guardada para esa huella, o null si no hay (o expiró)
+     */
+    public RouteOptimization.RouteOptimizationResponse get(String fingerprint) {
+        if (!available) {
+            return null;
+        }
+        Entry entry = index.get(fingerprint);
+        if (entry == null || isExpired(entry.segment)) {
+            missCounter.increment();
+            return null;
+        }
+        try {
+            ByteBuffer record = entry.segment.read(entry.offset, entry.length);
+            CodedInputStream input = CodedInputStream.newInstance(record);
+            int size = input.readRawVarint32();
+            int oldLimit = input.pushLimit(size);
+            RouteOptimization.RouteOptimizationResponse response =
+                    RouteOptimization.RouteOptimizationResponse.parseFrom(input);
+            input.popLimit(oldLimit);
+            hitCounter.increment();
+            return response;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read result {} from {}: {}", fingerprint, entry.segment.dataFile, e.getMessage());
+            index.remove(fingerprint, entry);
+            missCounter.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Encola una respuesta completa para añadirla al segmento activo. No bloquea: la
+     * escritura se hace en el hilo escritor del almacén.
+     */
+    public void put(String fingerprint, RouteOptimization.RouteOptimizationResponse response) {
+        if (!available || response == null || !response.hasResults()) {
+            return;
+        }
+        try {
+            writer.execute(() -> write(fingerprint, response));
+        } catch (RejectedExecutionException e) {
+            droppedWritesCounter.increment();
+            logger.debug("Result store write queue full, not persisting {}", fingerprint);
+        }
+    }
+
+    private void write(String fingerprint, RouteOptimization.RouteOptimizationResponse response) {
+        if (!available) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(response.getSerializedSize() + 5);
+            response.writeDelimitedTo(bytes);
+            byte[] record = bytes.toByteArray();
+
+            synchronized (this) {
+                Segment segment = activeSegmentForWrite(record.length);
+                long offset = segment.append(record, HexFormat.of().parseHex(fingerprint));
+                index.put(fingerprint, new Entry(segment, offset, record.length));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not persist result {}: {}", fingerprint, e.getMessage());
+        }
+    }
+
+    private Segment activeSegmentForWrite(int recordLength) throws IOException {
+        ProcessingConfigurationProperties.ResultStore config = processingConfig.getResultStore();
+        long now = System.currentTimeMillis();
+        if (activeSegment == null
+                || activeSegment.size() + recordLength > config.getSegmentMaxBytes()
+                || now - activeSegment.createdMillis > TimeUnit.MINUTES.toMillis(config.getSegmentRollMinutes())) {
+            if (activeSegment != null) {
+                // Ya no se escribe más en él: mapearlo entero
+                activeSegment.seal();
+            }
+            // El timestamp es la clave del segmento: garantizar que sea único
+            long created = Math.max(now, segments.isEmpty() ? now : segments.lastKey() + 1);
+            activeSegment = Segment.create(directory, created);
+            segments.put(created, activeSegment);
+        }
+        return activeSegment;
+    }
+
+    private void loadSegments() throws IOException {
+        List<Path> indexFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + INDEX_SUFFIX)) {
+            stream.forEach(indexFiles::add);
+        }
+
+        for (Path indexFile : indexFiles) {
+            String name = indexFile.getFileName().toString();
+            long created;
+            try {
+                created = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - INDEX_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            Path dataFile = directory.resolve(SEGMENT_PREFIX + created + SEGMENT_SUFFIX);
+            if (!Files.exists(dataFile) || isExpired(created)) {
+                deleteQuietly(indexFile);
+                deleteQuietly(dataFile);
+                continue;
+            }
+            // Los segmentos de un arranque anterior no vuelven a escribirse
+            Segment segment = Segment.open(dataFile, indexFile, created);
+            segment.seal();
+            segments.put(created, segment);
+        }
+
+        // Del más antiguo al más nuevo: la entrada más reciente de cada huella gana
+        for (Segment segment : segments.values()) {
+            ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(segment.indexFile));
+            long dataSize = segment.size();
+            byte[] digest = new byte[FINGERPRINT_BYTES];
+            while (entries.remaining() >= INDEX_ENTRY_BYTES) {
+                entries.get(digest);
+                long offset = entries.getLong();
+                int length = entries.getInt();
+                // Ignorar entradas de escrituras incompletas
+                if (offset + length <= dataSize) {
+                    index.put(HexFormat.of().formatHex(digest), new Entry(segment, offset, length));
+                }
+            }
+        }
+    }
+
+    /**
+     * Borra los segmentos más antiguos que cleanup-after-hours junto con sus entradas
+     */
+    private void cleanup() {
+        try {
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                if (!isExpired(segment)) {
+                    continue;
+                }
+                synchronized (this) {
+                    if (segment == activeSegment) {
+                        activeSegment = null;
+                    }
+                    segments.remove(segment.createdMillis);
+                }
+                index.values().removeIf(entry -> entry.segment == segment);
+                segment.closeQuietly();
+                deleteQuietly(segment.dataFile);
+                deleteQuietly(segment.indexFile);
+                logger.info("Deleted expired result segment {}", segment.dataFile.getFileName());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error cleaning up persistent result store", e);
+        }
+    }
+
+    private boolean isExpired(Segment segment) {
+        return isExpired(segment.createdMillis);
+    }
+
+    private boolean isExpired(long createdMillis) {
+        long maxAge = TimeUnit.HOURS.toMillis(processingConfig.getCleanupAfterHours());
+        return System.currentTimeMillis() - createdMillis > maxAge;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Posición de un resultado dentro de un segmento
+     */
+    private record Entry(Segment segment, long offset, int length) {
+    }
+
+    /**
+     * Un par de ficheros .seg/.idx. Mientras es el segmento activo se escribe por append y
+     * se lee con mapeos de solo lectura de MAP_CHUNK_BYTES, creados una sola vez cuando el
+     * tramo está completo; solo la cola que aún se escribe se lee con lecturas posicionales.
+     * Al sellarlo (rotación o reapertura tras un reinicio) ya es inmutable y se mapea entero
+     * con su tamaño final. Los offsets son long: no hay límite de 2 GB por segmento.
+     */
+    private static final class Segment {
+        private final Path dataFile;
+        private final Path indexFile;
+        private final long createdMillis;
+        private final FileChannel dataChannel;
+        private final FileChannel indexChannel;
+        private final Map<Long, MappedByteBuffer> chunks = new ConcurrentHashMap<>();
+        private volatile Sealed sealed;
+
+        private Segment(Path dataFile, Path indexFile, long createdMillis) throws IOException {
+            this.dataFile = dataFile;
+            this.indexFile = indexFile;
+            this.createdMillis = createdMillis;
+            this.dataChannel = FileChannel.open(dataFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.indexChannel = FileChannel.open(indexFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.dataChannel.position(dataChannel.size());
+        }
+
+        static Segment create(Path directory, long createdMillis) throws IOException {
+            return new Segment(directory.resolve(SEGMENT_PREFIX + createdMillis + SEGMENT_SUFFIX),
+                    directory.resolve(SEGMENT_PREFIX + createdMillis + INDEX_SUFFIX), createdMillis);
+        }
+
+        static Segment open(Path dataFile, Path indexFile, long createdMillis) throws IOException {
+            return new Segment(dataFile, indexFile, createdMillis);
+        }
+
+        long size() throws IOException {
+            return dataChannel.size();
+        }
+
+        /**
+         * Escribe el registro y después su entrada de índice; devuelve el offset del registro
+         */
+        long append(byte[] record, byte[] fingerprint) throws IOException {
+            long offset = dataChannel.position();
+            ByteBuffer data = ByteBuffer.wrap(record);
+            while (data.hasRemaining()) {
+                dataChannel.write(data);
+            }
+
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            entry.put(fingerprint).putLong(offset).putInt(record.length).flip();
+            while (entry.hasRemaining()) {
+                indexChannel.write(entry);
+            }
+            return offset;
+        }
+
+        /**
+         * Marca el segmento como inmutable y mapea todo su contenido en tramos de como mucho
+         * MAP_CHUNK_BYTES (el último, con el tamaño que quede)
+         */
+        void seal() throws IOException {
+            long size = dataChannel.size();
+            List<MappedByteBuffer> maps = new ArrayList<>();
+            for (long start = 0; start < size; start += MAP_CHUNK_BYTES) {
+                maps.add(dataChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_CHUNK_BYTES, size - start)));
+            }
+            indexChannel.close();
+            sealed = new Sealed(size, maps);
+            chunks.clear();
+        }
+
+        ByteBuffer read(long offset, int length) throws IOException {
+            long chunk = offset / MAP_CHUNK_BYTES;
+            long chunkStart = chunk * MAP_CHUNK_BYTES;
+            long chunkEnd = chunkStart + MAP_CHUNK_BYTES;
+
+            Sealed sealedMaps = sealed;
+            if (sealedMaps != null) {
+                if (offset + length > sealedMaps.size) {
+                    throw new EOFException("Record at " + offset + " extends past the end of " + dataFile);
+                }
+                if (offset + length <= chunkEnd) {
+                    return sealedMaps.chunks.get((int) chunk).slice((int) (offset - chunkStart), length);
+                }
+                // Registro que cruza dos tramos: mapeo propio, también fuera del heap
+                return dataChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+
+            if (offset + length <= chunkEnd && dataChannel.size() >= chunkEnd) {
+                MappedByteBuffer buffer = chunks.get(chunk);
+                if (buffer == null) {
+                    buffer = chunks.computeIfAbsent(chunk, key -> map(chunkStart));
+                }
+                return buffer.slice((int) (offset - chunkStart), length);
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(length);
+            while (record.hasRemaining()) {
+                if (dataChannel.read(record, offset + record.position()) < 0) {
+                    throw new EOFException("Record at " + offset + " extends past the end of " + dataFile);
+                }
+            }
+            return record.flip();
+        }
+
+        private MappedByteBuffer map(long chunkStart) {
+            try {
+                return dataChannel.map(FileChannel.MapMode.READ_ONLY, chunkStart, MAP_CHUNK_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                dataChannel.close();
+                indexChannel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close segment {}: {}", dataFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Mapeos de un segmento sellado, con su tamaño final
+     */
+    private record Sealed(long size, List<MappedByteBuffer> chunks) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.exiua.processing.service;
+
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.Deadline;
+
+/**
+ * Presupuesto de tiempo de un trabajo compartido por varias peticiones. Empieza con el
+ * deadline de quien lo lanza y cada petición que se engancha lo alarga hasta el suyo si es
+ * más largo: el trabajo sigue mientras quede alguien dispuesto a esperarlo. Nunca se acorta;
+ * cada petición hace cumplir su propio deadline por su cuenta.
+ */
+final class RequestBudget {
+
+    private volatile Deadline deadline;
+
+    RequestBudget(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Alarga el presupuesto hasta {@code candidate} si vence más tarde
+     */
+    synchronized void extend(Deadline candidate) {
+        if (deadline.isBefore(candidate)) {
+            deadline = candidate;
+        }
+    }
+
+    Deadline current() {
+        return deadline;
+    }
+
+    boolean isExpired() {
+        return deadline.isExpired();
+    }
+
+    long remaining(TimeUnit unit) {
+        return deadline.timeRemaining(unit);
+    }
+
+    /**
+     * El más tardío de dos deadlines (Deadline solo ofrece minimum)
+     */
+    static Deadline latest(Deadline a, Deadline b) {
+        return a.isBefore(b) ? b : a;
+    }
+}
@@ -0,0 +1,218 @@
+package com.exiua.processing.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Cobertura (hedging) de los RPC idempotentes: si la primera llamada no ha respondido
+ * cuando ya tarda más que el percentil configurado de las últimas llamadas a ese método,
+ * sale una segunda idéntica y gana la primera respuesta; la que pierde se cancela en
+ * cuanto hay ganadora, para no dejar un RPC abierto en Python hasta su deadline.
+ * <p>
+ * Las coberturas tienen su propio presupuesto (token bucket): cada llamada suma
+ * hedging.budget-ratio fichas, hasta hedging.budget-max-tokens, y cada cobertura gasta una.
+ * No tocan el {@link RetryBudget} de OptimizeRoute.
+ * <p>
+ * El percentil se calcula con la latencia que ve quien llama (desde el primer intento hasta
+ * la respuesta ganadora). Una llamada lenta rescatada por su cobertura sigue aportando al
+ * menos el retraso de la cobertura, así que el percentil no se hunde por quedarse solo con
+ * las ganadoras rápidas.
+ * <p>
+ * Solo para lecturas sin efectos (GetJobStatus, GetJobStatuses, GetJobResult): OptimizeRoute
+ * y CancelJob nunca deben duplicarse, y los sondeos (HealthCheck, GetQueueInfo) no se cubren.
+ */
+class RequestHedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+
+    // Latencias recientes por método para estimar el percentil
+    private static final int LATENCY_WINDOW = 200;
+    private static final int MIN_SAMPLES = 20;
+
+    private final GrpcPythonMrlAmisConfigurationProperties.Hedging config;
+    private final ScheduledExecutorService scheduler;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, MethodStats> stats = new ConcurrentHashMap<>();
+    private final Counter budgetExhaustedCounter;
+
+    private double tokens;
+
+    RequestHedger(GrpcPythonMrlAmisConfigurationProperties.Hedging config, ScheduledExecutorService scheduler,
+            MeterRegistry meterRegistry) {
+        this.config = config;
+        this.scheduler = scheduler;
+        this.meterRegistry = meterRegistry;
+        this.tokens = config.getBudgetMaxTokens();
+
+        Gauge.builder("route.processing.hedged.budget.tokens", this, RequestHedger::getTokens)
+                .description("Coberturas disponibles en su presupuesto")
+                .register(meterRegistry);
+        this.budgetExhaustedCounter = Counter.builder("route.processing.hedged.budget.exhausted")
+                .description("Coberturas no lanzadas por presupuesto agotado")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la llamada, con una segunda de cobertura si la primera se retrasa.
+     * Cancelar el futuro devuelto, o que responda una de las llamadas, cancela las demás.
+     *
+     * @param method nombre del RPC (métricas y percentil por método)
+     * @param call   lanza una llamada nueva cada vez que se invoca
+     */
+    <T> CompletableFuture<T> call(String method, Supplier<ListenableFuture<T>> call) {
+        MethodStats methodStats = stats.computeIfAbsent(method, MethodStats::new);
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        CompletableFuture<T> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                attempts.forEach(attempt -> attempt.cancel(mayInterruptIfRunning));
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        launch(methodStats, call, attempts, pending, result, false);
+        if (config.isEnabled()) {
+            deposit();
+            long delayMillis = methodStats.hedgeDelayMillis();
+            ScheduledFuture<?> hedge = scheduler.schedule(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                if (!withdraw()) {
+                    budgetExhaustedCounter.increment();
+                    return;
+                }
+                // La primera sigue en curso: pending no puede estar en 0
+                pending.incrementAndGet();
+                methodStats.hedgedCounter.increment();
+                logger.debug("Hedging {} after {}ms without reply", method, delayMillis);
+                launch(methodStats, call, attempts, pending, result, true);
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((value, error) -> hedge.cancel(false));
+        }
+
+        result.whenComplete((value, error) -> {
+            long latencyNanos = System.nanoTime() - startNanos;
+            methodStats.latencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+            if (error == null) {
+                methodStats.record(latencyNanos);
+            }
+            // La ganadora ya terminó: esto solo cancela las que siguen en curso
+            attempts.forEach(attempt -> attempt.cancel(false));
+        });
+        return result;
+    }
+
+    synchronized double getTokens() {
+        return tokens;
+    }
+
+    private synchronized void deposit() {
+        tokens = Math.min(config.getBudgetMaxTokens(), tokens + config.getBudgetRatio());
+    }
+
+    private synchronized boolean withdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private <T> void launch(MethodStats methodStats, Supplier<ListenableFuture<T>> call,
+            List<CompletableFuture<T>> attempts, AtomicInteger pending, CompletableFuture<T> result, boolean hedge) {
+        CompletableFuture<T> attempt;
+        try {
+            attempt = GrpcFutures.toCompletableFuture(call.get());
+        } catch (RuntimeException e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        attempts.add(attempt);
+        if (result.isDone()) {
+            attempt.cancel(false);
+        }
+        attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value) && hedge) {
+                    methodStats.hedgeWinsCounter.increment();
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                // Solo se falla cuando no queda ninguna llamada que pueda responder
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Latencias recientes y métricas de un método
+     */
+    private final class MethodStats {
+        private final long[] latencies = new long[LATENCY_WINDOW];
+        private int next;
+        private int samples;
+        private final Counter hedgedCounter;
+        private final Counter hedgeWinsCounter;
+        private final Timer latencyTimer;
+
+        private MethodStats(String method) {
+            this.hedgedCounter = Counter.builder("route.processing.hedged.calls")
+                    .tag("method", method)
+                    .description("Llamadas de cobertura lanzadas")
+                    .register(meterRegistry);
+            this.hedgeWinsCounter = Counter.builder("route.processing.hedged.wins")
+                    .tag("method", method)
+                    .description("Llamadas de cobertura que respondieron antes que la original")
+                    .register(meterRegistry);
+            this.latencyTimer = Timer.builder("route.processing.hedged.latency")
+                    .tag("method", method)
+                    .description("Latencia vista por quien llama, con cobertura incluida")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+
+        synchronized void record(long latencyNanos) {
+            latencies[next] = latencyNanos;
+            next = (next + 1) % latencies.length;
+            samples = Math.min(samples + 1, latencies.length);
+        }
+
+        /**
+         * Percentil configurado de las últimas latencias; initial-delay-millis hasta tener muestras
+         */
+        long hedgeDelayMillis() {
+            long[] sorted;
+            synchronized (this) {
+                if (samples < MIN_SAMPLES) {
+                    return config.getInitialDelayMillis();
+                }
+                sorted = Arrays.copyOf(latencies, samples);
+            }
+            Arrays.sort(sorted);
+            int index = Math.min(sorted.length - 1, (int) Math.ceil(config.getPercentile() * sorted.length) - 1);
+            long delayMillis = TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+            return Math.max(config.getMinDelayMillis(), delayMillis);
+        }
+    }
+}
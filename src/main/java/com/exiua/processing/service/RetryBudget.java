@@ -0,0 +1,86 @@
+package com.exiua.processing.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Presupuesto de reintentos de OptimizeRoute (token bucket).
+ * <p>
+ * Solo ganan fichas los envíos reales que salen bien al primer intento: cada uno suma
+ * budget-ratio fichas (hasta budget-max-tokens) y cada reintento gasta una. Los sondeos
+ * (HealthCheck, GetQueueInfo) y los propios reintentos no ganan nada, así que durante una
+ * caída nada rellena el presupuesto. Las coberturas del {@link RequestHedger} tienen su
+ * propio presupuesto y nunca gastan estas fichas. Los
+ * reintentos nunca pasan de una fracción de los envíos que están saliendo bien: si Python se
+ * reinicia, los clientes en vuelo agotan el presupuesto enseguida y fallan en lugar de
+ * multiplicar la carga sobre la réplica que vuelve.
+ */
+class RetryBudget {
+
+    private final GrpcPythonMrlAmisConfigurationProperties.Retry config;
+    private final Counter retriesCounter;
+    private final Counter exhaustedCounter;
+
+    private double tokens;
+
+    RetryBudget(GrpcPythonMrlAmisConfigurationProperties.Retry config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.tokens = config.getBudgetMaxTokens();
+
+        Gauge.builder("route.processing.retry.budget.tokens", this, RetryBudget::getTokens)
+                .description("Reintentos disponibles en el presupuesto compartido")
+                .register(meterRegistry);
+        this.retriesCounter = Counter.builder("route.processing.retries")
+                .description("Reintentos de envío concedidos por el presupuesto")
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("route.processing.retry.budget.exhausted")
+                .description("Reintentos descartados por presupuesto agotado")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Envío aceptado por MRL-AMIS al primer intento: suma budget-ratio fichas
+     */
+    synchronized void onFirstAttemptSuccess() {
+        tokens = Math.min(config.getBudgetMaxTokens(), tokens + config.getBudgetRatio());
+    }
+
+    /**
+     * Gasta una ficha si queda alguna; false si el reintento no debe hacerse
+     */
+    boolean tryAcquireRetry() {
+        boolean granted = withdraw();
+        (granted ? retriesCounter : exhaustedCounter).increment();
+        return granted;
+    }
+
+    /**
+     * Espera antes del siguiente intento con decorrelated jitter: aleatoria entre la base y el
+     * triple de la anterior (de la base en el primer reintento), acotada a max-backoff-millis.
+     * Los clientes que fallaron a la vez no vuelven a la vez.
+     *
+     * @param previousBackoffMillis espera anterior (0 en el primer reintento)
+     */
+    long nextBackoffMillis(long previousBackoffMillis) {
+        long base = config.getBaseBackoffMillis();
+        long upper = Math.max(base, previousBackoffMillis) * 3;
+        return Math.min(config.getMaxBackoffMillis(), ThreadLocalRandom.current().nextLong(base, upper + 1));
+    }
+
+    synchronized double getTokens() {
+        return tokens;
+    }
+
+    private synchronized boolean withdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,240 @@
+package com.exiua.processing.service;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.exiua.processing.model.JobStatus;
+import com.exiua.processing.model.RouteProcessingRequest;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import route.optimization.RouteOptimization;
+
+/**
+ * Trabajo de optimización enviado por la API asíncrona (/api/v1/jobs).
+ * Refleja el último estado conocido del trabajo MRL-AMIS y, al terminar, su resultado o error.
+ * Cada cambio se publica como {@link Snapshot} en un único sink compartido por todos los
+ * suscriptores de {@link #updates()}.
+ */
+public class RouteJob {
+
+    private final String id;
+    private final String routeId;
+    private final String userId;
+    private final Instant submittedAt;
+
+    private JobStatus status = JobStatus.QUEUED;
+    private float progress;
+    private int queuePosition;
+    private String message;
+    private String estimatedCompletionTime;
+    private String upstreamJobId;
+    private Instant updatedAt;
+    private Instant finishedAt;
+    private GrpcPythonMrlAmisService.RouteOptimizationResult result;
+    private String errorMessage;
+
+    // Optimización en curso (para cancelarla) y suscriptores SSE que la mantienen viva
+    private volatile CompletableFuture<?> processing;
+    private final AtomicInteger watchers = new AtomicInteger();
+
+    // Guarda el último snapshot para quien se suscriba tarde (incluido el final)
+    private final Sinks.Many<Snapshot> updates = Sinks.many().replay().latest();
+
+    RouteJob(String id, RouteProcessingRequest request) {
+        this.id = id;
+        this.routeId = request.getRouteId();
+        this.userId = request.getUserId();
+        this.submittedAt = Instant.now();
+        this.updatedAt = submittedAt;
+        updates.tryEmitNext(snapshot());
+    }
+
+    /**
+     * Aplica un estado recibido de MRL-AMIS. Los estados finales solo llegan con
+     * {@link #complete} o {@link #fail}, cuando el resultado ya está disponible.
+     */
+    synchronized void onStatus(RouteOptimization.JobStatusResponse statusResponse) {
+        if (status.isFinal()) {
+            return;
+        }
+        if (!statusResponse.getJobId().isEmpty()) {
+            upstreamJobId = statusResponse.getJobId();
+        }
+        JobStatus upstreamStatus = JobStatus.fromGrpcStatus(statusResponse.getStatus());
+        JobStatus newStatus = !upstreamStatus.isFinal() && upstreamStatus != JobStatus.UNKNOWN ? upstreamStatus : status;
+        String newMessage = statusResponse.getMessage().isEmpty() ? message : statusResponse.getMessage();
+        String newEta = statusResponse.getEstimatedCompletionTime().isEmpty()
+                ? estimatedCompletionTime : statusResponse.getEstimatedCompletionTime();
+        if (newStatus == status && statusResponse.getProgress() == progress
+                && statusResponse.getQueuePosition() == queuePosition && Objects.equals(newMessage, message)
+                && Objects.equals(newEta, estimatedCompletionTime)) {
+            // Sin cambios: no molestar a los suscriptores
+            return;
+        }
+        status = newStatus;
+        progress = statusResponse.getProgress();
+        queuePosition = statusResponse.getQueuePosition();
+        message = newMessage;
+        estimatedCompletionTime = newEta;
+        updatedAt = Instant.now();
+        updates.tryEmitNext(snapshot());
+    }
+
+    synchronized void complete(GrpcPythonMrlAmisService.RouteOptimizationResult result) {
+        if (status.isFinal()) {
+            return;
+        }
+        this.result = result;
+        this.status = JobStatus.COMPLETED;
+        this.progress = 100f;
+        this.queuePosition = 0;
+        this.updatedAt = Instant.now();
+        this.finishedAt = updatedAt;
+        updates.tryEmitNext(snapshot());
+        updates.tryEmitComplete();
+    }
+
+    synchronized void fail(Throwable error) {
+        if (status.isFinal()) {
+            return;
+        }
+        this.status = JobStatus.FAILED;
+        this.errorMessage = error.getMessage();
+        this.updatedAt = Instant.now();
+        this.finishedAt = updatedAt;
+        updates.tryEmitNext(snapshot());
+        updates.tryEmitComplete();
+    }
+
+    synchronized void cancelled(String reason) {
+        if (status.isFinal()) {
+            return;
+        }
+        this.status = JobStatus.CANCELLED;
+        this.message = reason;
+        this.queuePosition = 0;
+        this.updatedAt = Instant.now();
+        this.finishedAt = updatedAt;
+        updates.tryEmitNext(snapshot());
+        updates.tryEmitComplete();
+    }
+
+    void attach(CompletableFuture<?> processing) {
+        this.processing = processing;
+    }
+
+    /**
+     * Cancela la optimización si sigue en curso
+     *
+     * @return false si el trabajo ya había terminado
+     */
+    boolean cancel() {
+        CompletableFuture<?> running = processing;
+        return running != null && running.cancel(true);
+    }
+
+    int addWatcher() {
+        return watchers.incrementAndGet();
+    }
+
+    int removeWatcher() {
+        return watchers.decrementAndGet();
+    }
+
+    /**
+     * Estado actual leído de forma consistente
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(id, routeId, userId, status, progress, queuePosition, message, errorMessage,
+                estimatedCompletionTime, submittedAt, updatedAt, finishedAt, result);
+    }
+
+    /**
+     * Cambios de estado del trabajo: empieza por el estado actual y termina con el final
+     */
+    public Flux<Snapshot> updates() {
+        return updates.asFlux();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRouteId() {
+        return routeId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public synchronized JobStatus getStatus() {
+        return status;
+    }
+
+    public synchronized float getProgress() {
+        return progress;
+    }
+
+    public synchronized int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public synchronized String getMessage() {
+        return message;
+    }
+
+    public synchronized String getUpstreamJobId() {
+        return upstreamJobId;
+    }
+
+    public synchronized Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public synchronized Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public synchronized GrpcPythonMrlAmisService.RouteOptimizationResult getResult() {
+        return result;
+    }
+
+    public synchronized String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public synchronized boolean isFinished() {
+        return status.isFinal();
+    }
+
+    /**
+     * Copia inmutable del estado de un trabajo
+     */
+    public record Snapshot(
+            String jobId,
+            String routeId,
+            String userId,
+            JobStatus status,
+            float progress,
+            int queuePosition,
+            String message,
+            String errorMessage,
+            String estimatedCompletionTime,
+            Instant submittedAt,
+            Instant updatedAt,
+            Instant finishedAt,
+            GrpcPythonMrlAmisService.RouteOptimizationResult result) {
+
+        public boolean isFinished() {
+            return status.isFinal();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.exiua.processing.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+import com.exiua.processing.model.RouteProcessingRequest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Registro en memoria de los trabajos de la API asíncrona. Lanza la optimización sin
+ * ocupar el hilo HTTP y guarda su estado y resultado para consultarlos después.
+ * Los trabajos terminados se olvidan tras processing.cleanup-after-hours.
+ */
+@Component
+public class RouteJobRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteJobRegistry.class);
+
+    private static final long CLEANUP_INTERVAL_MINUTES = 5;
+
+    private final GrpcPythonMrlAmisService grpcService;
+    private final ProcessingConfigurationProperties processingConfig;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, RouteJob> jobs = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> cleanupTask;
+
+    public RouteJobRegistry(
+            GrpcPythonMrlAmisService grpcService,
+            ProcessingConfigurationProperties processingConfig,
+            @Qualifier("routeProcessingScheduler") ScheduledExecutorService scheduler,
+            MeterRegistry meterRegistry) {
+        this.grpcService = grpcService;
+        this.processingConfig = processingConfig;
+        this.scheduler = scheduler;
+
+        Gauge.builder("route.processing.jobs.registered", jobs, Map::size)
+                .description("Trabajos de la API asíncrona en el registro")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        cleanupTask = scheduler.scheduleWithFixedDelay(this::removeExpiredJobs,
+                CLEANUP_INTERVAL_MINUTES, CLEANUP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (cleanupTask != null) {
+            cleanupTask.cancel(false);
+        }
+    }
+
+    /**
+     * Registra un trabajo nuevo y lanza su optimización en segundo plano
+     *
+     * @param timeout presupuesto total de la optimización (null: el configurado por defecto)
+     * @throws AdmissionController.AdmissionRejectedException si el servicio está saturado
+     */
+    public RouteJob submit(RouteProcessingRequest request, Duration timeout) {
+        RouteJob job = new RouteJob(UUID.randomUUID().toString(), request);
+
+        // Si la admisión lo rechaza el trabajo no llega a registrarse
+        CompletableFuture<GrpcPythonMrlAmisService.RouteOptimizationResult> processing =
+                grpcService.processRouteAsync(request, timeout, job::onStatus);
+        job.attach(processing);
+        jobs.put(job.getId(), job);
+        logger.info("Job {} submitted for route {}", job.getId(), request.getRouteId());
+
+        processing
+            .whenComplete((result, error) -> {
+                if (error instanceof CancellationException) {
+                    logger.info("Job {} cancelled", job.getId());
+                    job.cancelled("Cancelled by client");
+                } else if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    logger.warn("Job {} failed: {}", job.getId(), cause.getMessage());
+                    job.fail(cause);
+                } else {
+                    logger.info("Job {} completed", job.getId());
+                    job.complete(result);
+                }
+            });
+        return job;
+    }
+
+    public Optional<RouteJob> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Cancela un trabajo en curso (y su trabajo MRL-AMIS si nadie más lo espera)
+     *
+     * @return false si el trabajo ya había terminado
+     */
+    public boolean cancel(RouteJob job) {
+        boolean cancelled = job.cancel();
+        if (cancelled) {
+            logger.info("Job {} cancellation requested", job.getId());
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cambios de estado de un trabajo para un suscriptor. Con cancelOnDisconnect el suscriptor
+     * cuenta como interesado: si el último de ellos se desconecta antes del final, el trabajo
+     * se cancela.
+     */
+    public Flux<RouteJob.Snapshot> watch(RouteJob job, boolean cancelOnDisconnect) {
+        if (!cancelOnDisconnect) {
+            return job.updates();
+        }
+        return job.updates()
+                .doOnSubscribe(subscription -> job.addWatcher())
+                .doFinally(signal -> {
+                    if (job.removeWatcher() == 0 && signal == SignalType.CANCEL && cancel(job)) {
+                        logger.info("Last subscriber of job {} disconnected, job cancelled", job.getId());
+                    }
+                });
+    }
+
+    private void removeExpiredJobs() {
+        try {
+            Instant cutoff = Instant.now().minus(Duration.ofHours(processingConfig.getCleanupAfterHours()));
+            jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error removing expired jobs", e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.exiua.processing.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import route.optimization.RouteOptimization;
+
+/**
+ * Single-flight de optimizaciones: peticiones idénticas (misma huella canónica) que llegan
+ * mientras ya hay un trabajo en curso se enganchan a ese trabajo en lugar de enviar otro.
+ * Cuando todos los interesados cancelan su copia se cancela también el trabajo compartido.
+ * El trabajo corre con el presupuesto más largo de sus interesados ({@link RequestBudget}).
+ */
+@Component
+public class RouteRequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteRequestCoalescer.class);
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public RouteRequestCoalescer(MeterRegistry meterRegistry) {
+        this.hitCounter = Counter.builder("route.processing.coalescing.requests")
+                .tag("result", "hit")
+                .description("Peticiones enganchadas a un trabajo idéntico ya en curso")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("route.processing.coalescing.requests")
+                .tag("result", "miss")
+                .description("Peticiones que lanzaron un trabajo nuevo")
+                .register(meterRegistry);
+        Gauge.builder("route.processing.coalescing.in.flight", inFlight, Map::size)
+                .description("Trabajos distintos en curso")
+                .register(meterRegistry);
+        Gauge.builder("route.processing.coalescing.hit.ratio", this, RouteRequestCoalescer::getHitRatio)
+                .description("Proporción de peticiones resueltas por coalescencia")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el resultado del trabajo en curso con esa huella o lanza uno nuevo con
+     * {@code submission}. Cada llamante recibe su propia copia del futuro, de modo que
+     * cancelar la suya no afecta a los demás; al cancelar el último se cancela el envío.
+     * Si {@code submission} lanza una excepción (p. ej. admisión rechazada) se relanza aquí
+     * y los que se hubieran enganchado mientras tanto reciben el fallo.
+     *
+     * @param deadline   presupuesto de quien llama; alarga el del trabajo si es más largo
+     * @param submission lanza el trabajo con el presupuesto compartido
+     */
+    public CompletableFuture<RouteOptimization.RouteOptimizationResponse> execute(String fingerprint, Deadline deadline,
+            Function<RequestBudget, CompletableFuture<RouteOptimization.RouteOptimizationResponse>> submission) {
+
+        boolean[] created = {false};
+        Flight flight = inFlight.compute(fingerprint, (key, existing) -> {
+            if (existing != null) {
+                existing.interested++;
+                existing.budget.extend(deadline);
+                return existing;
+            }
+            created[0] = true;
+            return new Flight(new RequestBudget(deadline));
+        });
+
+        if (created[0]) {
+            missCounter.increment();
+            launch(fingerprint, flight, submission);
+        } else {
+            hitCounter.increment();
+            logger.info("Coalescing request {} onto in-flight optimization", shortId(fingerprint));
+        }
+
+        CompletableFuture<RouteOptimization.RouteOptimizationResponse> copy = flight.result.copy();
+        copy.whenComplete((response, error) -> {
+            if (copy.isCancelled()) {
+                abandon(fingerprint, flight);
+            }
+        });
+        return copy;
+    }
+
+    public double getHitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    private void launch(String fingerprint, Flight flight,
+            Function<RequestBudget, CompletableFuture<RouteOptimization.RouteOptimizationResponse>> submission) {
+        try {
+            flight.submission = submission.apply(flight.budget);
+            flight.submission.whenComplete((response, error) -> {
+                // Quitar antes de completar: los que lleguen después lanzan (o leen de caché) de nuevo
+                inFlight.remove(fingerprint, flight);
+                if (error != null) {
+                    flight.result.completeExceptionally(error);
+                } else {
+                    flight.result.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(fingerprint, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Un interesado canceló su copia; si era el último se cancela el trabajo compartido
+     */
+    private void abandon(String fingerprint, Flight flight) {
+        boolean[] lastOne = {false};
+        inFlight.computeIfPresent(fingerprint, (key, existing) -> {
+            if (existing != flight || --existing.interested > 0) {
+                return existing;
+            }
+            lastOne[0] = true;
+            return null;
+        });
+        if (lastOne[0]) {
+            logger.info("No callers left for optimization {}, cancelling it", shortId(fingerprint));
+            flight.result.cancel(true);
+            CompletableFuture<?> running = flight.submission;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+    }
+
+    private static String shortId(String fingerprint) {
+        return fingerprint.substring(0, Math.min(12, fingerprint.length()));
+    }
+
+    /**
+     * Trabajo compartido, su presupuesto y cuántos llamantes siguen interesados en él.
+     * interested solo cambia dentro de compute/computeIfPresent sobre su entrada del mapa.
+     */
+    private static class Flight {
+        private final CompletableFuture<RouteOptimization.RouteOptimizationResponse> result = new CompletableFuture<>();
+        private final RequestBudget budget;
+        private volatile CompletableFuture<RouteOptimization.RouteOptimizationResponse> submission;
+        private int interested = 1;
+
+        private Flight(RequestBudget budget) {
+            this.budget = budget;
+        }
+    }
+}
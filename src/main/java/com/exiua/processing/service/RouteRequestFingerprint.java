@@ -0,0 +1,53 @@
+package com.exiua.processing.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+import com.google.protobuf.CodedOutputStream;
+
+import route.optimization.RouteOptimization;
+
+/**
+ * Huella canónica de una petición de optimización: SHA-256 de la petición gRPC (con los
+ * valores por defecto ya aplicados por convertToGrpcRequest), con los POIs ordenados por ID
+ * y sin route_id ni user_id. Dos peticiones con la misma huella producen la misma ruta.
+ */
+final class RouteRequestFingerprint {
+
+    private RouteRequestFingerprint() {
+    }
+
+    static String of(RouteOptimization.RouteOptimizationRequest request) {
+        List<RouteOptimization.POI> sortedPois = new ArrayList<>(request.getPoisList());
+        sortedPois.sort(Comparator.comparingInt(RouteOptimization.POI::getId));
+
+        RouteOptimization.RouteOptimizationRequest canonical = request.toBuilder()
+                .clearRouteId()
+                .clearUserId()
+                .clearPois()
+                .addAllPois(sortedPois)
+                .build();
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(canonical.getSerializedSize());
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+            output.useDeterministicSerialization();
+            canonical.writeTo(output);
+            output.flush();
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(bytes.toByteArray()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.exiua.processing.service;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import route.optimization.RouteOptimization;
+
+/**
+ * Caché en memoria de respuestas MRL-AMIS por huella canónica de la petición.
+ * Expira por TTL y desaloja por peso (bytes serializados de la respuesta).
+ * Expone gets (hit/miss), evictions y tamaño en actuator como cache.* {cache=routeResults}.
+ */
+@Component
+public class RouteResultCache {
+
+    private final boolean enabled;
+    private final Cache<String, RouteOptimization.RouteOptimizationResponse> cache;
+
+    public RouteResultCache(ProcessingConfigurationProperties processingConfig, MeterRegistry meterRegistry) {
+        ProcessingConfigurationProperties.ResultCache config = processingConfig.getResultCache();
+        this.enabled = config.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(config.getTtlMinutes()))
+                .maximumWeight(config.getMaxWeightBytes())
+                .<String, RouteOptimization.RouteOptimizationResponse>weigher(
+                        (fingerprint, response) -> fingerprint.length() + response.getSerializedSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "routeResults");
+    }
+
+    /**
+     * Respuesta cacheada para esa huella, o null
+     */
+    public RouteOptimization.RouteOptimizationResponse get(String fingerprint) {
+        return enabled ? cache.getIfPresent(fingerprint) : null;
+    }
+
+    /**
+     * Guarda una respuesta completa (solo si trae resultados)
+     */
+    public void put(String fingerprint, RouteOptimization.RouteOptimizationResponse response) {
+        if (enabled && response != null && response.hasResults()) {
+            cache.put(fingerprint, response);
+        }
+    }
+}
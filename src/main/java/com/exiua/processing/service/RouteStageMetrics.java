@@ -0,0 +1,154 @@
+package com.exiua.processing.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.exiua.processing.config.PollingStrategy;
+import com.exiua.processing.service.GrpcPythonMrlAmisService.JobStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import route.optimization.RouteOptimization;
+
+/**
+ * Latencia de cada etapa de una optimización (route.processing.stage), con histograma de
+ * percentiles y etiquetas stage, optimize_for y pois (tramo de número de POIs), para ver en
+ * qué se van los ~18 minutos: conversión, envío, cola y proceso en Python, descarga del
+ * resultado y mapeo de la respuesta. El retraso de detección lo mide solo JobTracker
+ * (route.processing.job.detection.lag).
+ */
+class RouteStageMetrics {
+
+    private static final String METRIC = "route.processing.stage";
+
+    // Valores conocidos de optimize_for; el resto se agrupa para acotar la cardinalidad
+    private static final Set<String> OPTIMIZE_FOR_VALUES = Set.of("distance", "time", "cost", "sustainability");
+
+    enum Stage {
+        CONVERSION("conversion"),
+        SUBMIT("submit"),
+        QUEUED("queued"),
+        PROCESSING("processing"),
+        RESULT_FETCH("result_fetch"),
+        RESPONSE_MAPPING("response_mapping");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    RouteStageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    void record(Stage stage, RouteOptimization.RouteOptimizationRequest request, long durationNanos) {
+        record(stage, request.getPreferences().getOptimizeFor(), request.getPoisCount(), durationNanos);
+    }
+
+    void record(Stage stage, String optimizeFor, int poiCount, long durationNanos) {
+        Timer.builder(METRIC)
+                .tag("stage", stage.tag)
+                .tag("optimize_for", optimizeForTag(optimizeFor))
+                .tag("pois", poiBucket(poiCount))
+                .description("Duración de cada etapa de la optimización de una ruta")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(30))
+                .register(meterRegistry)
+                .record(Math.max(0, durationNanos), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cronómetro de un trabajo aceptado por MRL-AMIS; hay que pasarle cada estado recibido
+     */
+    JobClock startJob(RouteOptimization.RouteOptimizationRequest request) {
+        return new JobClock(request);
+    }
+
+    static String poiBucket(int poiCount) {
+        if (poiCount <= 5) {
+            return "1-5";
+        } else if (poiCount <= 10) {
+            return "6-10";
+        } else if (poiCount <= 20) {
+            return "11-20";
+        } else if (poiCount <= 50) {
+            return "21-50";
+        }
+        return "50+";
+    }
+
+    private static String optimizeForTag(String optimizeFor) {
+        if (optimizeFor == null || optimizeFor.isBlank()) {
+            return "distance";
+        }
+        String value = optimizeFor.trim().toLowerCase();
+        return OPTIMIZE_FOR_VALUES.contains(value) ? value : "other";
+    }
+
+    /**
+     * Mide cola y proceso de un trabajo a partir de sus estados. Usa created_at/started_at/
+     * completed_at del servidor si vienen; si no, cuándo vimos cada cambio de estado (en ese
+     * caso el retraso de detección queda incluido en el proceso).
+     */
+    final class JobClock implements Consumer<RouteOptimization.JobStatusResponse> {
+        private final RouteOptimization.RouteOptimizationRequest request;
+        private final long acceptedNanos = System.nanoTime();
+        private long processingSeenNanos;
+        private long completedSeenNanos;
+
+        private JobClock(RouteOptimization.RouteOptimizationRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public synchronized void accept(RouteOptimization.JobStatusResponse status) {
+            if (completedSeenNanos != 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            JobStatus jobStatus = JobStatus.fromGrpcStatus(status.getStatus());
+            if (processingSeenNanos == 0 && jobStatus == JobStatus.PROCESSING) {
+                processingSeenNanos = now;
+            }
+            if (jobStatus == JobStatus.COMPLETED) {
+                completedSeenNanos = now;
+                recordCompleted(status, now);
+            }
+        }
+
+        /**
+         * El resultado completo ya se ha descargado
+         */
+        synchronized void resultFetched() {
+            if (completedSeenNanos != 0) {
+                record(Stage.RESULT_FETCH, request, System.nanoTime() - completedSeenNanos);
+            }
+        }
+
+        private void recordCompleted(RouteOptimization.JobStatusResponse status, long now) {
+            Instant createdAt = PollingStrategy.parseTimestamp(status.getCreatedAt());
+            Instant startedAt = PollingStrategy.parseTimestamp(status.getStartedAt());
+            Instant completedAt = PollingStrategy.parseTimestamp(status.getCompletedAt());
+
+            if (createdAt != null && startedAt != null) {
+                record(Stage.QUEUED, request, Duration.between(createdAt, startedAt).toNanos());
+            } else if (processingSeenNanos != 0) {
+                record(Stage.QUEUED, request, processingSeenNanos - acceptedNanos);
+            }
+
+            if (startedAt != null && completedAt != null) {
+                record(Stage.PROCESSING, request, Duration.between(startedAt, completedAt).toNanos());
+            } else if (processingSeenNanos != 0) {
+                record(Stage.PROCESSING, request, now - processingSeenNanos);
+            }
+        }
+    }
+}
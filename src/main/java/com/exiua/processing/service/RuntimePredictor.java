@@ -0,0 +1,169 @@
+package com.exiua.processing.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import route.optimization.RouteOptimization;
+
+/**
+ * Modelo en línea del tiempo de ejecución de MRL-AMIS. Regresión lineal por mínimos
+ * cuadrados recursivos (con olvido, para seguir cambios del servicio) sobre rasgos de la
+ * petición: número de POIs, optimize_for, max_total_time y pausa de comida. Se alimenta con
+ * metrics.execution_time_seconds de cada trabajo completado.
+ * Hasta tener suficientes muestras, o si la predicción no es un número finito, predice
+ * processing.admission.default-job-duration-seconds.
+ * <p>
+ * Con olvido, la covarianza crece sin límite en las direcciones que los datos nunca
+ * excitan (columnas de optimize_for siempre a cero, rasgos colineales con el término
+ * independiente). Por eso su traza se acota a MAX_COVARIANCE_TRACE y una actualización
+ * que produzca valores no finitos se descarta y reinicia la covarianza.
+ */
+@Component
+public class RuntimePredictor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuntimePredictor.class);
+
+    private static final int FEATURES = 8;
+    private static final int MIN_SAMPLES = 10;
+    // Factor de olvido: las muestras antiguas pierden peso poco a poco
+    private static final double FORGETTING = 0.995;
+    private static final double INITIAL_COVARIANCE = 1000.0;
+    private static final double MAX_COVARIANCE_TRACE = FEATURES * INITIAL_COVARIANCE;
+    private static final double MIN_PREDICTION_SECONDS = 1.0;
+
+    private final ProcessingConfigurationProperties processingConfig;
+    private final double[] weights = new double[FEATURES];
+    private final double[][] covariance = new double[FEATURES][FEATURES];
+    private final DistributionSummary errorSummary;
+    private long samples;
+
+    public RuntimePredictor(ProcessingConfigurationProperties processingConfig, MeterRegistry meterRegistry) {
+        this.processingConfig = processingConfig;
+        resetCovariance();
+
+        Gauge.builder("route.processing.runtime.model.samples", this, RuntimePredictor::getSamples)
+                .description("Trabajos completados usados para entrenar el modelo de duración")
+                .register(meterRegistry);
+        this.errorSummary = DistributionSummary.builder("route.processing.runtime.model.error")
+                .description("Error relativo de la duración predicha frente a la real")
+                .publishPercentiles(0.5, 0.9)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Duración esperada de la optimización en segundos
+     */
+    public synchronized double predictSeconds(RouteOptimization.RouteOptimizationRequest request) {
+        double predicted = samples >= MIN_SAMPLES ? dot(weights, features(request)) : Double.NaN;
+        if (!Double.isFinite(predicted)) {
+            return processingConfig.getAdmission().getDefaultJobDurationSeconds();
+        }
+        return Math.max(MIN_PREDICTION_SECONDS, predicted);
+    }
+
+    /**
+     * Incorpora la duración real de un trabajo completado
+     */
+    public synchronized void observe(RouteOptimization.RouteOptimizationRequest request, double executionSeconds) {
+        double[] x = features(request);
+        if (!(executionSeconds > 0) || !Double.isFinite(executionSeconds) || !allFinite(x)) {
+            return;
+        }
+        if (samples >= MIN_SAMPLES) {
+            double predicted = Math.max(MIN_PREDICTION_SECONDS, dot(weights, x));
+            errorSummary.record(Math.abs(predicted - executionSeconds) / executionSeconds);
+        }
+
+        // Actualización RLS: k = P·x / (λ + xᵀ·P·x); w += k·(y − wᵀ·x); P = (P − k·xᵀ·P) / λ
+        double[] px = new double[FEATURES];
+        for (int i = 0; i < FEATURES; i++) {
+            px[i] = dot(covariance[i], x);
+        }
+        double denominator = FORGETTING + dot(x, px);
+        double error = executionSeconds - dot(weights, x);
+        double[] nextWeights = new double[FEATURES];
+        double[][] nextCovariance = new double[FEATURES][FEATURES];
+        boolean finite = true;
+        for (int i = 0; i < FEATURES; i++) {
+            double gain = px[i] / denominator;
+            nextWeights[i] = weights[i] + gain * error;
+            finite &= Double.isFinite(nextWeights[i]);
+            for (int j = 0; j < FEATURES; j++) {
+                nextCovariance[i][j] = (covariance[i][j] - gain * px[j]) / FORGETTING;
+                finite &= Double.isFinite(nextCovariance[i][j]);
+            }
+        }
+        if (!finite) {
+            logger.warn("Discarding non-finite runtime model update ({}s for {} POIs); resetting covariance",
+                       executionSeconds, request.getPoisCount());
+            resetCovariance();
+            return;
+        }
+
+        System.arraycopy(nextWeights, 0, weights, 0, FEATURES);
+        double trace = 0;
+        for (int i = 0; i < FEATURES; i++) {
+            trace += nextCovariance[i][i];
+        }
+        // Escalar la matriz entera la mantiene simétrica y semidefinida positiva
+        double scale = trace > MAX_COVARIANCE_TRACE ? MAX_COVARIANCE_TRACE / trace : 1.0;
+        for (int i = 0; i < FEATURES; i++) {
+            for (int j = 0; j < FEATURES; j++) {
+                covariance[i][j] = nextCovariance[i][j] * scale;
+            }
+        }
+        samples++;
+        logger.debug("Runtime model updated with {}s for {} POIs ({} samples)",
+                    executionSeconds, request.getPoisCount(), samples);
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    private void resetCovariance() {
+        for (int i = 0; i < FEATURES; i++) {
+            for (int j = 0; j < FEATURES; j++) {
+                covariance[i][j] = i == j ? INITIAL_COVARIANCE : 0;
+            }
+        }
+    }
+
+    private static double[] features(RouteOptimization.RouteOptimizationRequest request) {
+        double pois = request.getPoisCount();
+        String optimizeFor = request.getPreferences().getOptimizeFor().toLowerCase();
+        return new double[] {
+            1.0,
+            pois,
+            pois * pois / 100.0,
+            request.getPreferences().getMaxTotalTime() / 60.0,
+            request.getConstraints().getLunchBreakRequired() ? 1.0 : 0.0,
+            "time".equals(optimizeFor) ? 1.0 : 0.0,
+            "cost".equals(optimizeFor) ? 1.0 : 0.0,
+            "sustainability".equals(optimizeFor) ? 1.0 : 0.0
+        };
+    }
+
+    private static boolean allFinite(double[] values) {
+        for (double value : values) {
+            if (!Double.isFinite(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
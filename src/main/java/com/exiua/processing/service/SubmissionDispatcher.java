@@ -0,0 +1,363 @@
+package com.exiua.processing.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Cola local de envíos a MRL-AMIS, la única delante del servicio Python. Un envío sale
+ * cuando el {@link AdaptiveConcurrencyLimiter} tiene hueco y ocupa ese hueco hasta que su
+ * trabajo termina; mientras tanto espera aquí sin ocupar hilos. Qué envíos pueden esperar
+ * lo decide el {@link AdmissionController} al encolar, mirando la cola del usuario.
+ * <p>
+ * Los huecos se reparten entre usuarios con deficit round robin ponderado: cada usuario
+ * con envíos pendientes tiene su propia cola y recibe, por ronda, un crédito proporcional
+ * a su peso. Así un usuario con 50 rutas en cola no retrasa a los demás, y ninguno tiene
+ * más de per-user-max-in-flight trabajos a la vez en Python.
+ * <p>
+ * Dentro de la cola de cada usuario el orden es FIFO o, con ordering=SHORTEST_EXPECTED_FIRST,
+ * primero el de menor duración predicha menos aging-factor × tiempo esperado, para que los
+ * trabajos largos no se queden esperando para siempre.
+ * <p>
+ * Cancelar el futuro devuelto por {@link #submit} saca el envío de la cola, o cancela su
+ * trabajo si ya había salido. El estado de un usuario se descarta en cuanto no tiene nada
+ * pendiente ni en curso, y las métricas no llevan el id de usuario.
+ */
+@Component
+public class SubmissionDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionDispatcher.class);
+
+    private static final String ANONYMOUS_USER = "anonymous";
+    // Coste de un envío en créditos DRR
+    private static final double SUBMISSION_COST = 1.0;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final AdmissionController admissionController;
+    private final ProcessingConfigurationProperties.FairScheduling config;
+    private final ProcessingConfigurationProperties.Admission admissionConfig;
+    private final Timer waitTimer;
+
+    // Solo usuarios con envíos pendientes o en curso
+    private final Map<String, UserQueue> users = new HashMap<>();
+    // Usuarios con envíos pendientes, en orden de ronda
+    private final Deque<UserQueue> activeUsers = new ArrayDeque<>();
+    // Envíos que ya salieron, para estimar cuánto les queda
+    private final Set<PendingSubmission<?>> dispatched = new HashSet<>();
+    private int queueDepth;
+    private double queuedPredictedSeconds;
+
+    public SubmissionDispatcher(AdaptiveConcurrencyLimiter limiter, AdmissionController admissionController,
+            ProcessingConfigurationProperties processingConfig, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.admissionController = admissionController;
+        this.config = processingConfig.getFairScheduling();
+        this.admissionConfig = processingConfig.getAdmission();
+        this.waitTimer = Timer.builder("route.processing.dispatch.wait")
+                .description("Espera en la cola local antes del envío a MRL-AMIS")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        Gauge.builder("route.processing.dispatch.queue.depth", this, SubmissionDispatcher::getQueueDepth)
+                .description("Envíos esperando hueco hacia MRL-AMIS")
+                .register(meterRegistry);
+        Gauge.builder("route.processing.dispatch.queued.users", this, SubmissionDispatcher::getQueuedUsers)
+                .description("Usuarios con envíos esperando hueco")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta {@code submission} de parte de {@code userId} en cuanto le toque turno y haya
+     * hueco; el hueco se libera al completarse su futuro. Una duración predicha no finita o
+     * negativa se sustituye por processing.admission.default-job-duration-seconds.
+     *
+     * @throws AdmissionController.AdmissionRejectedException si el usuario no puede encolar más
+     */
+    public <T> CompletableFuture<T> submit(String userId, double predictedSeconds,
+            Supplier<CompletableFuture<T>> submission) {
+        if (!Double.isFinite(predictedSeconds) || predictedSeconds < 0) {
+            predictedSeconds = admissionConfig.getDefaultJobDurationSeconds();
+        }
+        PendingSubmission<T> entry = new PendingSubmission<>(submission, predictedSeconds);
+        String key = normalize(userId);
+        UserQueue user = enqueue(key, entry);
+        entry.result.whenComplete((value, error) -> {
+            if (entry.result.isCancelled()) {
+                cancel(user, entry);
+            }
+        });
+        dispatch();
+        return entry.result;
+    }
+
+    /**
+     * Encola el envío si el {@link AdmissionController} lo admite con el estado actual de
+     * las colas; si no, lanza el rechazo (fuera del lock) con la espera estimada
+     */
+    private UserQueue enqueue(String key, PendingSubmission<?> entry) {
+        int userQueued;
+        int totalQueued;
+        long retryAfter;
+        synchronized (this) {
+            UserQueue user = users.get(key);
+            userQueued = user != null ? user.pending.size() : 0;
+            totalQueued = queueDepth;
+            int queuedUsers = activeUsers.size() + (userQueued == 0 ? 1 : 0);
+            if (admissionController.admits(userQueued, totalQueued, queuedUsers)) {
+                if (user == null) {
+                    user = new UserQueue(key);
+                    users.put(key, user);
+                }
+                if (user.pending.isEmpty()) {
+                    activeUsers.addLast(user);
+                }
+                user.pending.addLast(entry);
+                queueDepth++;
+                queuedPredictedSeconds += entry.predictedSeconds;
+                return user;
+            }
+            retryAfter = Math.max(1, (long) Math.ceil(estimateWaitSeconds()));
+        }
+        throw admissionController.reject(key, userQueued, totalQueued, retryAfter);
+    }
+
+    /**
+     * Envío cancelado por quien lo pidió: si aún espera se quita de la cola; si ya salió
+     * se cancela su trabajo (el hueco se libera al terminar este)
+     */
+    private void cancel(UserQueue user, PendingSubmission<?> entry) {
+        synchronized (this) {
+            if (user.pending.remove(entry)) {
+                queueDepth--;
+                queuedPredictedSeconds = Math.max(0, queuedPredictedSeconds - entry.predictedSeconds);
+                if (user.pending.isEmpty()) {
+                    activeUsers.remove(user);
+                    user.deficit = 0;
+                    evictIfIdle(user);
+                }
+                logger.debug("Cancelled queued submission for {}", user.userId);
+                return;
+            }
+        }
+        CompletableFuture<?> running = entry.running;
+        if (running != null) {
+            running.cancel(true);
+        }
+    }
+
+    public synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public synchronized int getQueuedUsers() {
+        return activeUsers.size();
+    }
+
+    /**
+     * Espera estimada hasta que haya hueco para un envío nuevo: trabajo pendiente (lo que
+     * les queda a los que están en curso más la duración predicha de los que esperan)
+     * repartido entre los huecos del limitador. Cero si hay hueco libre ahora mismo.
+     */
+    public synchronized double estimateWaitSeconds() {
+        int limit = Math.max(1, limiter.getLimit());
+        if (queueDepth == 0 && dispatched.size() < limit) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        double backlogSeconds = queuedPredictedSeconds;
+        for (PendingSubmission<?> entry : dispatched) {
+            double elapsed = (now - entry.startedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            backlogSeconds += Math.max(0, entry.predictedSeconds - elapsed);
+        }
+        return backlogSeconds / limit;
+    }
+
+    private void dispatch() {
+        while (true) {
+            UserQueue user;
+            PendingSubmission<?> next;
+            synchronized (this) {
+                if (activeUsers.isEmpty() || !limiter.tryAcquire()) {
+                    return;
+                }
+                user = selectNextUser();
+                if (user == null) {
+                    // Todos los usuarios con pendientes están en su tope
+                    limiter.release();
+                    return;
+                }
+                next = takeNext(user);
+                if (next == null) {
+                    // No debería pasar: el usuario estaba en la ronda con envíos pendientes
+                    logger.error("Active user {} had no pending submission", user.userId);
+                    activeUsers.remove(user);
+                    evictIfIdle(user);
+                    limiter.release();
+                    continue;
+                }
+                next.startedNanos = System.nanoTime();
+                dispatched.add(next);
+                user.deficit -= SUBMISSION_COST;
+                user.inFlight++;
+                queueDepth--;
+                queuedPredictedSeconds = Math.max(0, queuedPredictedSeconds - next.predictedSeconds);
+                if (user.pending.isEmpty()) {
+                    activeUsers.remove(user);
+                    user.deficit = 0;
+                }
+            }
+            waitTimer.record(next.startedNanos - next.enqueuedNanos, TimeUnit.NANOSECONDS);
+            start(user, next);
+        }
+    }
+
+    /**
+     * Siguiente usuario según DRR: recorre la ronda dando crédito hasta que alguien puede
+     * pagar su próximo envío. Devuelve null si todos están en su tope de trabajos en curso.
+     */
+    private UserQueue selectNextUser() {
+        int maxInFlight = config.getPerUserMaxInFlight();
+        boolean anyEligible = false;
+        for (UserQueue user : activeUsers) {
+            if (user.inFlight < maxInFlight) {
+                anyEligible = true;
+                break;
+            }
+        }
+        if (!anyEligible) {
+            return null;
+        }
+
+        while (true) {
+            UserQueue user = activeUsers.peekFirst();
+            if (user.inFlight < maxInFlight && user.deficit >= SUBMISSION_COST) {
+                return user;
+            }
+            activeUsers.pollFirst();
+            if (user.inFlight < maxInFlight) {
+                user.deficit += config.getQuantum() * weightOf(user.userId);
+            }
+            activeUsers.addLast(user);
+        }
+    }
+
+    /**
+     * Saca de la cola del usuario el siguiente envío según el orden configurado. Nunca
+     * devuelve null con la cola no vacía: si ninguna puntuación es comparable (NaN) sale
+     * el primero.
+     */
+    private PendingSubmission<?> takeNext(UserQueue user) {
+        if (config.getOrdering() == ProcessingConfigurationProperties.DispatchOrdering.FIFO) {
+            return user.pending.pollFirst();
+        }
+        long now = System.nanoTime();
+        PendingSubmission<?> best = user.pending.peekFirst();
+        double bestScore = Double.POSITIVE_INFINITY;
+        for (PendingSubmission<?> candidate : user.pending) {
+            double waitedSeconds = (now - candidate.enqueuedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            double score = candidate.predictedSeconds - config.getAgingFactor() * waitedSeconds;
+            if (score < bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        user.pending.remove(best);
+        return best;
+    }
+
+    private <T> void start(UserQueue user, PendingSubmission<T> entry) {
+        CompletableFuture<T> running;
+        try {
+            running = entry.submission.get();
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        entry.running = running;
+        if (entry.result.isCancelled()) {
+            // Cancelado mientras salía de la cola
+            running.cancel(true);
+        }
+        running.whenComplete((value, error) -> {
+            synchronized (this) {
+                dispatched.remove(entry);
+                user.inFlight--;
+                evictIfIdle(user);
+            }
+            limiter.release();
+            if (error != null) {
+                entry.result.completeExceptionally(error);
+            } else {
+                entry.result.complete(value);
+            }
+            // El hueco liberado puede dar paso al siguiente
+            dispatch();
+        });
+        logger.debug("Dispatched submission for {} ({} in flight, limit {})",
+                    user.userId, limiter.getInFlight(), limiter.getLimit());
+    }
+
+    private double weightOf(String userId) {
+        return config.getUserWeights().getOrDefault(userId, 1.0);
+    }
+
+    /**
+     * Un usuario sin pendientes ni trabajos en curso no tiene estado DRR que conservar
+     * (su crédito ya volvió a cero); se descarta para que el mapa no crezca sin límite
+     */
+    private void evictIfIdle(UserQueue user) {
+        if (user.pending.isEmpty() && user.inFlight == 0) {
+            users.remove(user.userId, user);
+        }
+    }
+
+    private static String normalize(String userId) {
+        return userId == null || userId.isBlank() ? ANONYMOUS_USER : userId;
+    }
+
+    /**
+     * Estado DRR de un usuario
+     */
+    private static class UserQueue {
+        private final String userId;
+        private final Deque<PendingSubmission<?>> pending = new ArrayDeque<>();
+        private double deficit;
+        private int inFlight;
+
+        private UserQueue(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * Envío en espera y el futuro que recibe su resultado
+     */
+    private static class PendingSubmission<T> {
+        private final Supplier<CompletableFuture<T>> submission;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long enqueuedNanos = System.nanoTime();
+        private final double predictedSeconds;
+        private long startedNanos;
+        private volatile CompletableFuture<T> running;
+
+        private PendingSubmission(Supplier<CompletableFuture<T>> submission, double predictedSeconds) {
+            this.submission = submission;
+            this.predictedSeconds = predictedSeconds;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.exiua.processing.model.RouteProcessingRequest;
+
+class ConcurrentRouteProcessingServiceTest {
+
+    private FakeMrlAmisServer server;
+    private MrlAmisClientFixture client;
+    private ConcurrentRouteProcessingService service;
+
+    @BeforeEach
+    void startFakeMrlAmis() throws Exception {
+        server = new FakeMrlAmisServer().start();
+        client = new MrlAmisClientFixture(MrlAmisClientFixture.localConfig(server.getPort()));
+        service = new ConcurrentRouteProcessingService(client.service, Runnable::run, client.processingConfig);
+    }
+
+    @AfterEach
+    void stopFakeMrlAmis() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    void duplicatesInABatchGetTheirOwnRequestId() {
+        RouteProcessingRequest first = MrlAmisClientFixture.route(0);
+        RouteProcessingRequest duplicate = MrlAmisClientFixture.route(0);
+        duplicate.setRouteId("route-0-again");
+
+        List<ConcurrentRouteProcessingService.BatchItemResult> items = service
+                .processBatch(List.of(first, duplicate), Duration.ofSeconds(10))
+                .collectList()
+                .block(Duration.ofSeconds(15));
+
+        assertThat(server.getOptimizeRouteCalls()).isEqualTo(1);
+        assertThat(items).hasSize(2).allSatisfy(item -> {
+            assertThat(item.status()).isEqualTo("COMPLETED");
+            assertThat(item.result().getRequestId()).isEqualTo(item.routeId());
+        });
+        assertThat(items.get(0).result()).isNotSameAs(items.get(1).result());
+        assertThat(items.get(1).result().getOptimizedRouteId()).isEqualTo(items.get(0).result().getOptimizedRouteId());
+    }
+}
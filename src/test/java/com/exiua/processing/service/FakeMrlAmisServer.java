@@ -0,0 +1,176 @@
+package com.exiua.processing.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import route.optimization.RouteOptimization;
+import route.optimization.RouteOptimizationServiceGrpc;
+
+/**
+ * Servicio MRL-AMIS falso en un puerto local libre. Cuenta las llamadas por RPC y, mientras
+ * {@link #failSubmissionsWith(Status)} esté activo, rechaza OptimizeRoute con ese estado;
+ * si no, acepta cada envío ya terminado (COMPLETED) para no tener que seguir trabajos.
+ * Con {@link #holdJobsFor(Duration)} cada trabajo queda en curso ese tiempo: WatchJob
+ * empuja COMPLETED al terminar y GetJobResult devuelve el resultado. Los RPC que no
+ * sobrescribe (OptimizeRoutes, GetJobStatuses, ...) responden UNIMPLEMENTED.
+ */
+class FakeMrlAmisServer extends RouteOptimizationServiceGrpc.RouteOptimizationServiceImplBase {
+
+    private final AtomicInteger optimizeRouteCalls = new AtomicInteger();
+    private final AtomicInteger probeCalls = new AtomicInteger();
+    private final AtomicInteger jobIds = new AtomicInteger();
+    private final AtomicInteger runningJobs = new AtomicInteger();
+    private final AtomicInteger peakRunningJobs = new AtomicInteger();
+    private final Map<String, Instant> completions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile Status submissionFailure;
+    private volatile Duration jobDuration;
+    private Server server;
+
+    FakeMrlAmisServer start() throws IOException {
+        server = ServerBuilder.forPort(0).addService(this).build().start();
+        return this;
+    }
+
+    void stop() throws InterruptedException {
+        scheduler.shutdownNow();
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    int getPort() {
+        return server.getPort();
+    }
+
+    void failSubmissionsWith(Status status) {
+        this.submissionFailure = status;
+    }
+
+    /**
+     * Los envíos siguientes quedan en curso {@code duration} antes de terminar
+     */
+    void holdJobsFor(Duration duration) {
+        this.jobDuration = duration;
+    }
+
+    int getOptimizeRouteCalls() {
+        return optimizeRouteCalls.get();
+    }
+
+    /**
+     * Máximo de trabajos en curso a la vez desde el arranque
+     */
+    int getPeakRunningJobs() {
+        return peakRunningJobs.get();
+    }
+
+    /**
+     * HealthCheck y GetQueueInfo recibidos
+     */
+    int getProbeCalls() {
+        return probeCalls.get();
+    }
+
+    @Override
+    public void optimizeRoute(RouteOptimization.RouteOptimizationRequest request,
+            StreamObserver<RouteOptimization.RouteOptimizationResponse> responseObserver) {
+        optimizeRouteCalls.incrementAndGet();
+        Status failure = submissionFailure;
+        if (failure != null) {
+            responseObserver.onError(failure.asRuntimeException());
+            return;
+        }
+        String jobId = "job-" + jobIds.incrementAndGet();
+        Duration duration = jobDuration;
+        if (duration == null) {
+            responseObserver.onNext(RouteOptimization.RouteOptimizationResponse.newBuilder()
+                    .setRouteId(request.getRouteId())
+                    .setJobId(jobId)
+                    .setStatus("COMPLETED")
+                    .setMessage("Optimized by the fake MRL-AMIS")
+                    .build());
+            responseObserver.onCompleted();
+            return;
+        }
+
+        int running = runningJobs.incrementAndGet();
+        peakRunningJobs.accumulateAndGet(running, Math::max);
+        completions.put(jobId, Instant.now().plus(duration));
+        scheduler.schedule(runningJobs::decrementAndGet, duration.toMillis(), TimeUnit.MILLISECONDS);
+        responseObserver.onNext(RouteOptimization.RouteOptimizationResponse.newBuilder()
+                .setRouteId(request.getRouteId())
+                .setJobId(jobId)
+                .setStatus("QUEUED")
+                .setMessage("Queued by the fake MRL-AMIS")
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void watchJob(RouteOptimization.JobStatusRequest request,
+            StreamObserver<RouteOptimization.JobStatusResponse> responseObserver) {
+        Instant completedAt = completions.get(request.getJobId());
+        if (completedAt == null) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("Unknown job").asRuntimeException());
+            return;
+        }
+        long delayMillis = Math.max(0, Duration.between(Instant.now(), completedAt).toMillis());
+        scheduler.schedule(() -> {
+            responseObserver.onNext(RouteOptimization.JobStatusResponse.newBuilder()
+                    .setJobId(request.getJobId())
+                    .setStatus("COMPLETED")
+                    .setProgress(100f)
+                    .setHasResult(true)
+                    .setCompletedAt(completedAt.toString())
+                    .build());
+            responseObserver.onCompleted();
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void getJobResult(RouteOptimization.JobResultRequest request,
+            StreamObserver<RouteOptimization.RouteOptimizationResponse> responseObserver) {
+        responseObserver.onNext(RouteOptimization.RouteOptimizationResponse.newBuilder()
+                .setJobId(request.getJobId())
+                .setStatus("COMPLETED")
+                .setMessage("Optimized by the fake MRL-AMIS")
+                .setResults(RouteOptimization.OptimizationResults.newBuilder()
+                        .setTotalDistanceKm(12.5)
+                        .setTotalTimeMinutes(240)
+                        .setOptimizationScore(0.9))
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void healthCheck(RouteOptimization.HealthRequest request,
+            StreamObserver<RouteOptimization.HealthResponse> responseObserver) {
+        probeCalls.incrementAndGet();
+        responseObserver.onNext(RouteOptimization.HealthResponse.newBuilder()
+                .setIsHealthy(true)
+                .setStatus("healthy")
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getQueueInfo(RouteOptimization.QueueInfoRequest request,
+            StreamObserver<RouteOptimization.QueueInfoResponse> responseObserver) {
+        probeCalls.incrementAndGet();
+        responseObserver.onNext(RouteOptimization.QueueInfoResponse.newBuilder()
+                .setMaxConcurrentJobs(4)
+                .build());
+        responseObserver.onCompleted();
+    }
+}
@@ -0,0 +1,80 @@
+package com.exiua.processing.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.exiua.processing.config.FixedIntervalPollingStrategy;
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+import com.exiua.processing.model.ProcessingPOI;
+import com.exiua.processing.model.RouteProcessingRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cliente gRPC real ({@link GrpcPythonMrlAmisService} y sus colaboradores) cableado a mano
+ * contra un {@link FakeMrlAmisServer}, sin contexto de Spring ni almacén en disco.
+ */
+class MrlAmisClientFixture implements AutoCloseable {
+
+    final GrpcPythonMrlAmisConfigurationProperties grpcConfig;
+    final ProcessingConfigurationProperties processingConfig = new ProcessingConfigurationProperties();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    final GrpcPythonMrlAmisService service;
+
+    private final JobTracker jobTracker;
+
+    MrlAmisClientFixture(GrpcPythonMrlAmisConfigurationProperties grpcConfig) {
+        this.grpcConfig = grpcConfig;
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(processingConfig, meterRegistry);
+        this.jobTracker = new JobTracker(grpcConfig, scheduler,
+                new FixedIntervalPollingStrategy(Duration.ofMillis(100)), meterRegistry);
+        this.service = new GrpcPythonMrlAmisService(grpcConfig, scheduler, jobTracker,
+                new RouteRequestCoalescer(meterRegistry),
+                new RouteResultCache(processingConfig, meterRegistry),
+                new PersistentResultStore(processingConfig, scheduler, meterRegistry),
+                new SubmissionDispatcher(limiter, new AdmissionController(processingConfig, meterRegistry),
+                        processingConfig, meterRegistry),
+                limiter,
+                new RuntimePredictor(processingConfig, meterRegistry),
+                meterRegistry);
+        service.initialize();
+    }
+
+    /**
+     * Configuración para pruebas: una réplica local, sin TLS, lotes ni coberturas y con esperas
+     * entre reintentos de milisegundos
+     */
+    static GrpcPythonMrlAmisConfigurationProperties localConfig(int port) {
+        GrpcPythonMrlAmisConfigurationProperties config = new GrpcPythonMrlAmisConfigurationProperties();
+        config.setHost("localhost");
+        config.setPort(port);
+        config.setConnectionTimeoutSeconds(5);
+        config.setBackendProbeIntervalSeconds(1);
+        config.setSubmitBatchEnabled(false);
+        config.getHedging().setEnabled(false);
+        config.getRetry().setBaseBackoffMillis(1);
+        config.getRetry().setMaxBackoffMillis(5);
+        return config;
+    }
+
+    /**
+     * Petición con una huella propia por {@code index}, para que no se resuelva por coalescencia ni caché
+     */
+    static RouteProcessingRequest route(int index) {
+        RouteProcessingRequest request = new RouteProcessingRequest("route-" + index,
+                List.of(new ProcessingPOI((long) index + 1, "POI " + index, 9.93, -84.08 + index * 1e-4)));
+        request.setUserId("user-" + index % 4);
+        return request;
+    }
+
+    @Override
+    public void close() {
+        jobTracker.stop();
+        service.shutdown();
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,99 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import route.optimization.RouteOptimization;
+
+class PersistentResultStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void sealedSegmentsAreReadBack() throws Exception {
+        // Un segmento por resultado: cada escritura sella el anterior
+        ProcessingConfigurationProperties config = config(1);
+        PersistentResultStore store = open(config);
+        store.put(fingerprint(1), response(1));
+        store.put(fingerprint(2), response(2));
+
+        assertThat(await(store, fingerprint(2))).isEqualTo(response(2));
+        assertThat(store.get(fingerprint(1))).isEqualTo(response(1));
+        store.shutdown();
+    }
+
+    @Test
+    void resultsSurviveARestart() throws Exception {
+        ProcessingConfigurationProperties config = config(1024 * 1024);
+        PersistentResultStore store = open(config);
+        for (int i = 0; i < 10; i++) {
+            store.put(fingerprint(i), response(i));
+        }
+        // shutdown espera a las escrituras encoladas
+        store.shutdown();
+
+        PersistentResultStore reopened = open(config);
+        for (int i = 0; i < 10; i++) {
+            assertThat(reopened.get(fingerprint(i))).isEqualTo(response(i));
+        }
+        reopened.shutdown();
+    }
+
+    private ProcessingConfigurationProperties config(long segmentMaxBytes) {
+        ProcessingConfigurationProperties config = new ProcessingConfigurationProperties();
+        config.setTempDataDirectory(directory.toString());
+        config.getResultStore().setSegmentMaxBytes(segmentMaxBytes);
+        return config;
+    }
+
+    private PersistentResultStore open(ProcessingConfigurationProperties config) {
+        PersistentResultStore store = new PersistentResultStore(config, scheduler, new SimpleMeterRegistry());
+        store.initialize();
+        return store;
+    }
+
+    private static RouteOptimization.RouteOptimizationResponse await(PersistentResultStore store, String fingerprint)
+            throws InterruptedException {
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        RouteOptimization.RouteOptimizationResponse stored = store.get(fingerprint);
+        while (stored == null && System.nanoTime() < waitUntil) {
+            Thread.sleep(10);
+            stored = store.get(fingerprint);
+        }
+        return stored;
+    }
+
+    private static String fingerprint(int i) {
+        return String.format("%064x", i);
+    }
+
+    private static RouteOptimization.RouteOptimizationResponse response(int i) {
+        return RouteOptimization.RouteOptimizationResponse.newBuilder()
+                .setRouteId("route-" + i)
+                .setJobId("job-" + i)
+                .setStatus("COMPLETED")
+                .setResults(RouteOptimization.OptimizationResults.newBuilder()
+                        .setTotalDistanceKm(i + 0.5)
+                        .setRouteDescription("Route " + i))
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.exiua.processing.config.AdaptivePollingStrategy;
+import com.exiua.processing.config.FixedIntervalPollingStrategy;
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+import com.exiua.processing.config.PollingStrategy;
+
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import route.optimization.RouteOptimization;
+
+/**
+ * Comparación entre el intervalo fijo y el polling adaptativo: los mismos JOBS trabajos
+ * simulados pasan QUEUED_MILLIS en cola (de la posición QUEUE_POSITION a la 0) y
+ * PROCESSING_MILLIS procesando con progreso y ETA reales. Se mide cuántas consultas de
+ * estado hace el tracker y el retraso de detección medio (route.processing.job.detection.lag).
+ */
+class PollingStrategyBenchmarkTest {
+
+    private static final int JOBS = 20;
+    private static final long STAGGER_MILLIS = 37;
+    private static final long QUEUED_MILLIS = 1500;
+    private static final long PROCESSING_MILLIS = 1500;
+    private static final int QUEUE_POSITION = 10;
+
+    private static final Duration FIXED_INTERVAL = Duration.ofMillis(250);
+    private static final Duration MIN_INTERVAL = Duration.ofMillis(25);
+    private static final Duration MAX_INTERVAL = Duration.ofMillis(1000);
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void adaptivePollingDetectsCompletionSoonerWithFewerChecks() {
+        Run fixed = run(new FixedIntervalPollingStrategy(FIXED_INTERVAL));
+        Run adaptive = run(new AdaptivePollingStrategy(MIN_INTERVAL, MAX_INTERVAL, FIXED_INTERVAL, QUEUE_POSITION));
+
+        String summary = String.format("fixed: %.0f checks, %.1fms lag; adaptive: %.0f checks, %.1fms lag",
+                fixed.statusChecks, fixed.meanLagMillis, adaptive.statusChecks, adaptive.meanLagMillis);
+        assertThat(adaptive.statusChecks).as(summary).isLessThanOrEqualTo(fixed.statusChecks);
+        assertThat(adaptive.meanLagMillis).as(summary).isLessThan(fixed.meanLagMillis / 2);
+    }
+
+    private Run run(PollingStrategy strategy) {
+        GrpcPythonMrlAmisConfigurationProperties config = new GrpcPythonMrlAmisConfigurationProperties();
+        config.setTrackerTickMillis(10);
+        config.setStatusBatchSize(JOBS);
+        config.setPollingIntervalSeconds(1);
+        config.setPollingMaxAttempts(60);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JobTracker tracker = new JobTracker(config, scheduler, strategy, meterRegistry);
+
+        Instant start = Instant.now();
+        List<CompletableFuture<?>> jobs = new ArrayList<>();
+        for (int i = 0; i < JOBS; i++) {
+            RouteOptimization.RouteOptimizationResponse submitted = RouteOptimization.RouteOptimizationResponse.newBuilder()
+                    .setJobId(Integer.toString(i))
+                    .setStatus("QUEUED")
+                    .setQueuePosition(QUEUE_POSITION)
+                    .build();
+            jobs.add(tracker.track(submitted.getJobId(), submitted, () -> Deadline.after(1, TimeUnit.MINUTES), status -> { }));
+        }
+        tracker.start((jobIds, deadline) -> {
+            Instant now = Instant.now();
+            List<RouteOptimization.JobStatusResponse> statuses = new ArrayList<>();
+            for (String jobId : jobIds) {
+                statuses.add(simulatedStatus(jobId, start.plusMillis(Integer.parseInt(jobId) * STAGGER_MILLIS), now));
+            }
+            return CompletableFuture.completedFuture(statuses);
+        });
+        CompletableFuture.allOf(jobs.toArray(CompletableFuture[]::new)).orTimeout(30, TimeUnit.SECONDS).join();
+        tracker.stop();
+
+        return new Run(meterRegistry.get("route.processing.tracker.status.checks").counter().count(),
+                meterRegistry.get("route.processing.job.detection.lag").timer().mean(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Estado del trabajo que empezó en {@code queuedAt}, visto en {@code now}
+     */
+    private static RouteOptimization.JobStatusResponse simulatedStatus(String jobId, Instant queuedAt, Instant now) {
+        Instant processingAt = queuedAt.plusMillis(QUEUED_MILLIS);
+        Instant completedAt = processingAt.plusMillis(PROCESSING_MILLIS);
+        RouteOptimization.JobStatusResponse.Builder status = RouteOptimization.JobStatusResponse.newBuilder().setJobId(jobId);
+
+        if (now.isBefore(processingAt)) {
+            long left = Duration.between(now, processingAt).toMillis();
+            return status.setStatus("QUEUED")
+                    .setQueuePosition((int) Math.ceil((double) QUEUE_POSITION * left / QUEUED_MILLIS))
+                    .build();
+        }
+        if (now.isBefore(completedAt)) {
+            long done = Duration.between(processingAt, now).toMillis();
+            return status.setStatus("PROCESSING")
+                    .setProgress(100f * done / PROCESSING_MILLIS)
+                    .setEstimatedCompletionTime(completedAt.toString())
+                    .build();
+        }
+        return status.setStatus("COMPLETED")
+                .setProgress(100f)
+                .setCompletedAt(completedAt.toString())
+                .build();
+    }
+
+    private record Run(double statusChecks, double meanLagMillis) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Medición antes/después de la cobertura: la misma secuencia de llamadas, donde 1 de cada
+ * SLOW_EVERY intentos tarda SLOW_MILLIS y el resto FAST_MILLIS, con y sin hedging.
+ */
+class RequestHedgerTest {
+
+    private static final int CALLS = 300;
+    private static final int SLOW_EVERY = 25;
+    private static final long FAST_MILLIS = 2;
+    private static final long SLOW_MILLIS = 200;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final List<SettableFuture<String>> replies = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void hedgingCutsTheTailLatency() {
+        long unhedgedP99 = p99Millis(hedger(false));
+        long hedgedP99 = p99Millis(hedger(true));
+
+        assertThat(unhedgedP99).isGreaterThanOrEqualTo(SLOW_MILLIS);
+        assertThat(hedgedP99)
+                .as("p99 with hedging (%dms without)", unhedgedP99)
+                .isLessThan(unhedgedP99 / 2);
+    }
+
+    @Test
+    void losingAttemptsAreCancelled() {
+        p99Millis(hedger(true));
+
+        // Cada cobertura deja exactamente una perdedora, ya sea la original o la propia cobertura
+        double hedges = meterRegistry.get("route.processing.hedged.calls").counter().count();
+        long cancelled = replies.stream().filter(SettableFuture::isCancelled).count();
+        assertThat(hedges).isPositive();
+        assertThat(cancelled).isEqualTo((long) hedges);
+    }
+
+    @Test
+    void hedgesAreBoundedByTheirOwnBudget() {
+        GrpcPythonMrlAmisConfigurationProperties.Hedging config = hedgingConfig(true);
+        config.setBudgetRatio(0.0);
+        config.setBudgetMaxTokens(3);
+        p99Millis(new RequestHedger(config, scheduler, meterRegistry));
+
+        assertThat(meterRegistry.get("route.processing.hedged.calls").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("route.processing.hedged.budget.exhausted").counter().count()).isPositive();
+    }
+
+    private RequestHedger hedger(boolean enabled) {
+        GrpcPythonMrlAmisConfigurationProperties.Hedging config = hedgingConfig(enabled);
+        config.setBudgetMaxTokens(CALLS);
+        return new RequestHedger(config, scheduler, meterRegistry);
+    }
+
+    private static GrpcPythonMrlAmisConfigurationProperties.Hedging hedgingConfig(boolean enabled) {
+        GrpcPythonMrlAmisConfigurationProperties.Hedging config = new GrpcPythonMrlAmisConfigurationProperties.Hedging();
+        config.setEnabled(enabled);
+        config.setPercentile(0.95);
+        config.setMinDelayMillis(50);
+        config.setInitialDelayMillis(50);
+        return config;
+    }
+
+    /**
+     * p99 de la latencia que ve quien llama en CALLS llamadas seguidas
+     */
+    private long p99Millis(RequestHedger hedger) {
+        long[] latencies = new long[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            long start = System.nanoTime();
+            hedger.call("GetJobResult", this::scriptedAttempt).join();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return TimeUnit.NANOSECONDS.toMillis(latencies[(int) Math.ceil(0.99 * CALLS) - 1]);
+    }
+
+    private ListenableFuture<String> scriptedAttempt() {
+        long delayMillis = attempts.incrementAndGet() % SLOW_EVERY == 0 ? SLOW_MILLIS : FAST_MILLIS;
+        SettableFuture<String> reply = SettableFuture.create();
+        replies.add(reply);
+        scheduler.schedule(() -> reply.set("result"), delayMillis, TimeUnit.MILLISECONDS);
+        return reply;
+    }
+}
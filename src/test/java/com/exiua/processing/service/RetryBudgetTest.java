@@ -0,0 +1,95 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.exiua.processing.config.GrpcPythonMrlAmisConfigurationProperties;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RetryBudgetTest {
+
+    // Suficientes para que los budget-max-tokens iniciales quepan en ratio × peticiones
+    private static final int REQUESTS = 200;
+
+    private FakeMrlAmisServer server;
+    private MrlAmisClientFixture client;
+
+    @BeforeEach
+    void startFakeMrlAmis() throws Exception {
+        server = new FakeMrlAmisServer().start();
+        GrpcPythonMrlAmisConfigurationProperties config = MrlAmisClientFixture.localConfig(server.getPort());
+        // Sin circuit breaker: así solo el presupuesto frena los reintentos
+        config.getCircuitBreaker().setEnabled(false);
+        client = new MrlAmisClientFixture(config);
+    }
+
+    @AfterEach
+    void stopFakeMrlAmis() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    void retriesDoNotAmplifyLoadDuringAnOutage() {
+        server.failSubmissionsWith(Status.UNAVAILABLE.withDescription("MRL-AMIS restarting"));
+
+        for (int i = 0; i < REQUESTS; i++) {
+            CompletableFuture<?> result = client.service.processRouteAsync(MrlAmisClientFixture.route(i));
+            assertThat(result).failsWithin(10, TimeUnit.SECONDS);
+        }
+
+        double ratio = client.grpcConfig.getRetry().getBudgetRatio();
+        assertThat(server.getOptimizeRouteCalls())
+                .as("OptimizeRoute attempts for %d requests", REQUESTS)
+                .isGreaterThan(REQUESTS)
+                .isLessThanOrEqualTo((int) ((1 + ratio) * REQUESTS));
+    }
+
+    @Test
+    void probesDoNotRefillTheBudget() throws Exception {
+        server.failSubmissionsWith(Status.UNAVAILABLE.withDescription("MRL-AMIS restarting"));
+        for (int i = 0; i < REQUESTS; i++) {
+            client.service.processRouteAsync(MrlAmisClientFixture.route(i)).handle((result, error) -> null).join();
+        }
+        assertThat(retryTokens()).isLessThan(1);
+
+        // HealthCheck y GetQueueInfo siguen saliendo bien mientras OptimizeRoute falla
+        int probesBefore = server.getProbeCalls();
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getProbeCalls() < probesBefore + 2 && System.nanoTime() < waitUntil) {
+            Thread.sleep(50);
+        }
+        assertThat(server.getProbeCalls()).isGreaterThanOrEqualTo(probesBefore + 2);
+        assertThat(retryTokens()).isLessThan(1);
+    }
+
+    @Test
+    void onlyFirstAttemptSubmissionsEarnTokens() {
+        GrpcPythonMrlAmisConfigurationProperties.Retry config = new GrpcPythonMrlAmisConfigurationProperties.Retry();
+        config.setBudgetRatio(0.25);
+        config.setBudgetMaxTokens(2);
+        RetryBudget budget = new RetryBudget(config, new SimpleMeterRegistry());
+
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isFalse();
+
+        for (int i = 0; i < 4; i++) {
+            budget.onFirstAttemptSuccess();
+        }
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isFalse();
+    }
+
+    private double retryTokens() {
+        return client.meterRegistry.get("route.processing.retry.budget.tokens").gauge().value();
+    }
+}
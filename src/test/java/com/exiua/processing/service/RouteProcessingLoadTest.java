@@ -0,0 +1,156 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.exiua.processing.config.AsyncConfig;
+import com.exiua.processing.model.RouteProcessingRequest;
+
+/**
+ * Prueba de carga del servicio completo contra {@link FakeMrlAmisServer}: REQUESTS peticiones
+ * concurrentes de USERS usuarios, cada trabajo en curso JOB_MILLIS en el servidor falso.
+ * Con la configuración por defecto (max-concurrent-requests=5, cola de 20) se comprueba:
+ * <ul>
+ * <li>nunca hay más de max-concurrent-requests trabajos a la vez en MRL-AMIS;</li>
+ * <li>lo que no cabe en la cola se rechaza (429) al momento y el resto termina;</li>
+ * <li>la cola se vacía a un ritmo cercano a max-concurrent-requests trabajos por JOB_MILLIS;</li>
+ * <li>las peticiones esperando no ocupan hilos: el número de hilos de la JVM no crece con ellas.</li>
+ * </ul>
+ * Se ejecuta con routeProcessingExecutor de plataforma y, en Java 21 ({@code mvn -Pjava21 test}),
+ * con el de hilos virtuales.
+ */
+class RouteProcessingLoadTest {
+
+    private static final int REQUESTS = 200;
+    private static final int USERS = 20;
+    private static final long JOB_MILLIS = 200;
+    // Margen para hilos que gRPC, Netty o el pool crean de forma perezosa durante la prueba
+    private static final int THREAD_SLACK = 20;
+
+    private FakeMrlAmisServer server;
+    private MrlAmisClientFixture client;
+
+    @BeforeEach
+    void startFakeMrlAmis() throws Exception {
+        server = new FakeMrlAmisServer().start();
+        client = new MrlAmisClientFixture(MrlAmisClientFixture.localConfig(server.getPort()));
+    }
+
+    @AfterEach
+    void stopFakeMrlAmis() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    void platformThreadExecutor() throws Exception {
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) new AsyncConfig().routeProcessingExecutor();
+        try {
+            runLoad(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualThreadExecutor() throws Exception {
+        SimpleAsyncTaskExecutor executor = (SimpleAsyncTaskExecutor) new AsyncConfig().virtualThreadRouteProcessingExecutor();
+        try {
+            runLoad(executor);
+        } finally {
+            executor.close();
+        }
+    }
+
+    private void runLoad(Executor executor) {
+        ConcurrentRouteProcessingService service =
+                new ConcurrentRouteProcessingService(client.service, executor, client.processingConfig);
+        // Calentar canal, pools y event loops antes de contar hilos
+        service.processAsync(request(-1)).join();
+        server.holdJobsFor(Duration.ofMillis(JOB_MILLIS));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> results = new ArrayList<>();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < REQUESTS; i++) {
+            CompletableFuture<GrpcPythonMrlAmisService.RouteOptimizationResult> processing;
+            try {
+                processing = service.processAsync(request(i));
+            } catch (AdmissionController.AdmissionRejectedException e) {
+                // Así lo recibe el controlador para responder 429
+                rejected.incrementAndGet();
+                continue;
+            }
+            results.add(processing.handle((result, error) -> {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof ConcurrentRouteProcessingService.RouteAsyncProcessingException) {
+                    cause = cause.getCause();
+                }
+                if (error == null) {
+                    completed.incrementAndGet();
+                } else if (cause instanceof AdmissionController.AdmissionRejectedException) {
+                    rejected.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        long submitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int rejectedAtOnce = rejected.get();
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).orTimeout(60, TimeUnit.SECONDS).join();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        int limit = client.processingConfig.getMaxConcurrentRequests();
+        double throughput = completed.get() / elapsedSeconds;
+        String summary = String.format(
+                "%d completed, %d rejected, %d failed in %.2fs (%.1f jobs/s, ideal %.1f); "
+                + "peak %d jobs in MRL-AMIS; threads %d -> peak %d; submitted in %dms",
+                completed.get(), rejected.get(), failed.get(), elapsedSeconds, throughput, limit * 1000.0 / JOB_MILLIS,
+                server.getPeakRunningJobs(), threadsBefore, threads.getPeakThreadCount(), submitMillis);
+
+        assertThat(failed.get()).as(summary).isZero();
+        assertThat(completed.get() + rejected.get()).as(summary).isEqualTo(REQUESTS);
+        // Como mucho los huecos, la cola y un envío por usuario que aún no tenía ninguno
+        int maxAdmitted = limit + client.processingConfig.getAdmission().getMaxQueueSize() + USERS;
+        assertThat(completed.get()).as(summary).isGreaterThanOrEqualTo(limit).isLessThanOrEqualTo(maxAdmitted);
+        // Los rechazos son inmediatos, no tras esperar turno
+        assertThat(rejectedAtOnce).as(summary).isEqualTo(rejected.get());
+        assertThat(server.getPeakRunningJobs()).as(summary).isEqualTo(limit);
+        // Ideal: rondas de `limit` trabajos de JOB_MILLIS cada una tras terminar de enviar
+        double idealSeconds = submitMillis / 1000.0 + Math.ceil((double) completed.get() / limit) * JOB_MILLIS / 1000.0;
+        assertThat(elapsedSeconds).as(summary).isLessThan(1.5 * idealSeconds);
+        assertThat(threads.getPeakThreadCount()).as(summary).isLessThan(threadsBefore + THREAD_SLACK);
+    }
+
+    private static RouteProcessingRequest request(int index) {
+        RouteProcessingRequest request = MrlAmisClientFixture.route(index + 1);
+        request.setUserId("user-" + Math.floorMod(index, USERS));
+        return request;
+    }
+}
@@ -0,0 +1,56 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import org.junit.jupiter.api.Test;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import route.optimization.RouteOptimization;
+
+class RuntimePredictorTest {
+
+    // Sin acotar la covarianza, 0.995^-n desborda hacia las 141 000 muestras
+    private static final int SAMPLES = 200_000;
+
+    private final RuntimePredictor predictor =
+            new RuntimePredictor(new ProcessingConfigurationProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void staysFiniteWhenSomeFeaturesNeverVary() {
+        // optimize_for siempre "distance": sus tres columnas valen siempre cero
+        for (int i = 0; i < SAMPLES; i++) {
+            int pois = 3 + i % 8;
+            predictor.observe(request(pois), 20.0 + 4.0 * pois);
+        }
+
+        double predicted = predictor.predictSeconds(request(5));
+        assertThat(predicted).isFinite().isCloseTo(40.0, offset(1.0));
+        assertThat(predictor.getSamples()).isEqualTo(SAMPLES);
+    }
+
+    @Test
+    void ignoresNonFiniteDurations() {
+        for (int i = 0; i < 20; i++) {
+            predictor.observe(request(4), 36.0);
+        }
+        predictor.observe(request(4), Double.POSITIVE_INFINITY);
+        predictor.observe(request(4), Double.NaN);
+
+        assertThat(predictor.getSamples()).isEqualTo(20);
+        assertThat(predictor.predictSeconds(request(4))).isFinite();
+    }
+
+    private static RouteOptimization.RouteOptimizationRequest request(int pois) {
+        RouteOptimization.RouteOptimizationRequest.Builder request = RouteOptimization.RouteOptimizationRequest.newBuilder()
+                .setPreferences(RouteOptimization.RoutePreferences.newBuilder()
+                        .setOptimizeFor("distance")
+                        .setMaxTotalTime(480));
+        for (int i = 0; i < pois; i++) {
+            request.addPois(RouteOptimization.POI.newBuilder().setId(i + 1));
+        }
+        return request.build();
+    }
+}
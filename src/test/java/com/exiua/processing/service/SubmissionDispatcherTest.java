@@ -0,0 +1,43 @@
+package com.exiua.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.exiua.processing.config.ProcessingConfigurationProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SubmissionDispatcherTest {
+
+    private final ProcessingConfigurationProperties processingConfig = new ProcessingConfigurationProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SubmissionDispatcher dispatcher = new SubmissionDispatcher(
+            new AdaptiveConcurrencyLimiter(processingConfig, meterRegistry),
+            new AdmissionController(processingConfig, meterRegistry), processingConfig, meterRegistry);
+
+    @Test
+    void nonFinitePredictionsDoNotStallTheQueue() {
+        // SHORTEST_EXPECTED_FIRST y per-user-max-in-flight=2: los demás esperan en la cola del usuario
+        List<CompletableFuture<String>> jobs = new ArrayList<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<String> job = new CompletableFuture<>();
+            jobs.add(job);
+            results.add(dispatcher.submit("user-1", Double.NaN, () -> job));
+        }
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(3);
+
+        for (int i = 0; i < jobs.size(); i++) {
+            jobs.get(i).complete("job-" + i);
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result).isCompleted());
+        assertThat(dispatcher.getQueueDepth()).isZero();
+        assertThat(dispatcher.estimateWaitSeconds()).isZero();
+    }
+}